@@ -27,7 +27,7 @@
  */
 package com.neotys.selenium.proxies;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import javassist.util.proxy.MethodHandler;
 import org.openqa.selenium.WebDriver;
@@ -35,7 +35,6 @@ import org.openqa.selenium.WebDriver;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 /**
  * Created by anouvel on 03/11/2016.
@@ -45,11 +44,8 @@ class MethodHandlers {
 	private MethodHandlers(){
 	}
 
-	private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = Arrays.asList("findElements", "findElement");
-
-	private static final List<String> METHODS_ALWAYS_SEND = Collections.singletonList("get");
-
-	private static final List<String> METHODS_SET_LAST_ACTION = Arrays.asList("findElements", "findElement");
+	private static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("webdriver", Collections.singletonList("get"),
+			Arrays.asList("findElements", "findElement"), Arrays.asList("findElements", "findElement"));
 
 	static MethodHandler newEueMethodHandler(final SeleniumProxyConfig proxyConfig, final WebDriver webDriver) {
 		return (proxy, method, proceed, args) -> {
@@ -61,8 +57,7 @@ class MethodHandlers {
 					}
 					return method.invoke(webDriver, args);
 				}
-				return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-						METHODS_SET_LAST_ACTION, webDriver, webDriver, method, args);
+				return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, webDriver, method, args);
 			} catch (final InvocationTargetException e) {
 				throw e.getCause();
 			}
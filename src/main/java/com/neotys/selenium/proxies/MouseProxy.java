@@ -29,15 +29,13 @@ package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.interactions.Mouse;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
@@ -56,10 +54,9 @@ public class MouseProxy {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
-    private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = Arrays.asList(new String[]{"getTagName", "getAttribute", "getText", "findElements",
-            "findElement"});
-
-    private static final List<String> METHODS_ALWAYS_SEND = Arrays.asList(new String[]{"click", "doubleClick", "contextClick"});
+    private static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("mouse", Arrays.asList(new String[]{"click", "doubleClick", "contextClick"}),
+            Arrays.asList(new String[]{"getTagName", "getAttribute", "getText", "findElements",
+            "findElement"}), Collections.<String> emptyList());
 
     /** Constructor.
      * @param webDriver
@@ -74,7 +71,7 @@ public class MouseProxy {
 
     /** @return */
     public Mouse getProxy() {
-        return (Mouse)Proxy.newProxyInstance(Mouse.class.getClassLoader(), WrapperUtils.getInterfacesUsed(original.getClass(), Mouse.class), invocationHandler);
+        return WrapperUtils.newProxy(Mouse.class, original, invocationHandler);
     }
 
     /** Listens to calls on various methods. */
@@ -85,8 +82,7 @@ public class MouseProxy {
                 return method.invoke(original, args);
             }
 
-            return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-            		Collections.<String> emptyList(), webDriver, original, method, args);
+            return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, original, method, args);
         }
     };
 }
@@ -29,17 +29,14 @@ package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriver.Navigation;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
@@ -58,9 +55,9 @@ public class NavigationProxy {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
-    private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = new ArrayList<>(Arrays.asList(new String[]{"back", "forward", "to", "refresh"}));
-
-    private static final List<String> METHODS_ALWAYS_SEND = Arrays.asList(new String[]{"to"});
+    /** All methods send entries when there is an exception. */
+    private static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("navigation", Arrays.asList(new String[]{"to"}),
+            Collections.singletonList(InstrumentationPolicy.ALL_METHODS), Collections.<String> emptyList());
 
     /** Constructor.
      * @param webDriver
@@ -75,7 +72,7 @@ public class NavigationProxy {
 
     /** @return */
     public Navigation getProxy() {
-        return (Navigation)Proxy.newProxyInstance(Navigation.class.getClassLoader(), WrapperUtils.getInterfacesUsed(original.getClass(), Navigation.class), invocationHandler);
+        return WrapperUtils.newProxy(Navigation.class, original, invocationHandler);
     }
 
     /** Listens to calls on various methods. */
@@ -87,11 +84,7 @@ public class NavigationProxy {
                 return method.invoke(original, args);
             }
 
-            // all methods send entries when there is an exception.
-            METHODS_SEND_ON_EXCEPTION_ONLY.add(method.getName());
-
-            return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-            		Collections.<String> emptyList(), webDriver, original, method, args);
+            return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, original, method, args);
         }
     };
 }
@@ -29,15 +29,13 @@ package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriver.Options;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
@@ -56,10 +54,9 @@ public class OptionsProxy {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
-    private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = Arrays.asList(new String[]{"addCookie", "deleteCookieNamed", "deleteCookie",
-            "deleteAllCookies", "getCookies", "getCookieNamed", });
-
-    private static final List<String> METHODS_ALWAYS_SEND = Arrays.asList(new String[]{});
+    private static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("options", Arrays.asList(new String[]{}),
+            Arrays.asList(new String[]{"addCookie", "deleteCookieNamed", "deleteCookie",
+            "deleteAllCookies", "getCookies", "getCookieNamed", }), Collections.<String> emptyList());
 
     /** Constructor.
      * @param webDriver
@@ -74,7 +71,7 @@ public class OptionsProxy {
 
     /** @return */
     public Options getProxy() {
-        return (Options)Proxy.newProxyInstance(Options.class.getClassLoader(), WrapperUtils.getInterfacesUsed(original.getClass(), Options.class), invocationHandler);
+        return WrapperUtils.newProxy(Options.class, original, invocationHandler);
     }
 
     /** Listens to calls on various methods. */
@@ -85,8 +82,7 @@ public class OptionsProxy {
                 return method.invoke(original, args);
             }
 
-            return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-            		Collections.<String> emptyList(), webDriver, original, method, args);
+            return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, original, method, args);
         }
     };
 }
@@ -28,8 +28,6 @@
 package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Collections;
 import java.util.List;
 
 import org.openqa.selenium.By;
@@ -45,30 +43,58 @@ import org.openqa.selenium.remote.FileDetector;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.RemoteWebElement;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.DriverContext;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
+import com.neotys.selenium.proxies.helpers.ProxiedMethod;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
-import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
 /** We tried to avoid using direct wrapper methods like this, but we found a case where an "instanceof" check was done
  * for a @RemoteWebElement in @org.openqa.selenium.remote.internal.WebElementToJsonConverter#apply(). */
 public class RemoteWebElementWrapper extends RemoteWebElement {
 
-	final WebDriver webDriver;
-	final SeleniumProxyConfig proxyConfig;
-	final ProxySendHelper proxySendHelper;
-	final WrapperUtils wrapperUtils;
 	final RemoteWebElement original;
 
-	private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = WebElementProxy.METHODS_SEND_ON_EXCEPTION_ONLY;
-
-	private static final List<String> METHODS_ALWAYS_SEND = WebElementProxy.METHODS_ALWAYS_SEND;
-
+	/** Shared by all the elements of the driver. */
+	final DriverContext context;
+
+	private static final InstrumentationPolicy POLICY = WebElementProxy.POLICY;
+
+	/** Resolved once instead of on each call. */
+	private static final ProxiedMethod CLICK = ProxiedMethod.of(RemoteWebElement.class, "click");
+	private static final ProxiedMethod SUBMIT = ProxiedMethod.of(RemoteWebElement.class, "submit");
+	private static final ProxiedMethod GET_TAG_NAME = ProxiedMethod.of(RemoteWebElement.class, "getTagName");
+	private static final ProxiedMethod GET_ATTRIBUTE = ProxiedMethod.of(RemoteWebElement.class, "getAttribute", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS = ProxiedMethod.of(RemoteWebElement.class, "findElements", By.class);
+	private static final ProxiedMethod FIND_ELEMENT = ProxiedMethod.of(RemoteWebElement.class, "findElement", By.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_ID = ProxiedMethod.of(RemoteWebElement.class, "findElementById", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_ID = ProxiedMethod.of(RemoteWebElement.class, "findElementsById", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_LINK_TEXT = ProxiedMethod.of(RemoteWebElement.class, "findElementByLinkText", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_LINK_TEXT = ProxiedMethod.of(RemoteWebElement.class, "findElementsByLinkText", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementByName", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementsByName", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_CLASS_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementByClassName", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_CLASS_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementsByClassName", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_CSS_SELECTOR = ProxiedMethod.of(RemoteWebElement.class, "findElementByCssSelector", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_CSS_SELECTOR = ProxiedMethod.of(RemoteWebElement.class, "findElementsByCssSelector", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_X_PATH = ProxiedMethod.of(RemoteWebElement.class, "findElementByXPath", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_X_PATH = ProxiedMethod.of(RemoteWebElement.class, "findElementsByXPath", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_PARTIAL_LINK_TEXT = ProxiedMethod.of(RemoteWebElement.class, "findElementByPartialLinkText", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_PARTIAL_LINK_TEXT = ProxiedMethod.of(RemoteWebElement.class, "findElementsByPartialLinkText", String.class);
+	private static final ProxiedMethod FIND_ELEMENT_BY_TAG_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementByTagName", String.class);
+	private static final ProxiedMethod FIND_ELEMENTS_BY_TAG_NAME = ProxiedMethod.of(RemoteWebElement.class, "findElementsByTagName", String.class);
+
+	/** The wrapper shares the context of the driver, like the wrappers created by the proxies.
+	 * @param webDriver
+	 * @param original
+	 * @param proxyConfig the config of the driver.
+	 */
 	public RemoteWebElementWrapper(final WebDriver webDriver, final RemoteWebElement original, final SeleniumProxyConfig proxyConfig){
-		this.webDriver = webDriver;
-		this.proxyConfig = proxyConfig;
-		this.proxySendHelper = new ProxySendHelper(proxyConfig);
-		this.wrapperUtils = new WrapperUtils(proxyConfig);
+		this(original, proxyConfig.getProxySendHelper().getWrapperUtils().getDriverContext(webDriver));
+	}
+
+	public RemoteWebElementWrapper(final RemoteWebElement original, final DriverContext context){
 		this.original = original;
+		this.context = context;
 	}
 	
 	@Override
@@ -95,11 +121,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("click", (Class<?>[])null);
-
-			proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, (Object[])null);
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, CLICK, (Object[])null);
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}
 	}
@@ -112,11 +135,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("submit", (Class<?>[])null);
-
-			proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, (Object[])null);
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, SUBMIT, (Object[])null);
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}
 	}
@@ -128,11 +148,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("getTagName", (Class<?>[])null);
-
-			return (String) proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, (Object[])null);
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return (String) context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, GET_TAG_NAME, (Object[])null);
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}
 	}
@@ -144,11 +161,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("getAttribute", (new Class<?>[]{String.class}));
-
-			return (String) proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{name});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return (String) context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, GET_ATTRIBUTE, new Object[]{name});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -160,11 +174,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElements", (new Class<?>[]{By.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{by});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS, new Object[]{by});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -176,11 +187,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElement", (new Class<?>[]{By.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{by});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT, new Object[]{by});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -192,11 +200,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementById", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_ID, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -208,11 +213,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsById", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_ID, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -224,11 +226,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByLinkText", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_LINK_TEXT, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -240,11 +239,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByLinkText", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_LINK_TEXT, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -256,11 +252,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -272,11 +265,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -288,11 +278,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByClassName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_CLASS_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -304,11 +291,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByClassName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_CLASS_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -320,11 +304,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByCssSelector", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_CSS_SELECTOR, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -336,11 +317,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByCssSelector", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_CSS_SELECTOR, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -352,11 +330,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByXPath", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_X_PATH, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -368,11 +343,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByXPath", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_X_PATH, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -384,11 +356,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByPartialLinkText", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_PARTIAL_LINK_TEXT, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -400,11 +369,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByPartialLinkText", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_PARTIAL_LINK_TEXT, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -416,11 +382,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementByTagName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENT_BY_TAG_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -432,11 +395,8 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 		}
 
 		try {
-			final Method method = RemoteWebElement.class.getDeclaredMethod("findElementsByTagName", (new Class<?>[]{String.class}));
-
-			return proxySendHelper.sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY, Collections.<String>emptyList(),
-					webDriver, original, method, new Object[]{using});
-		} catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
+			return context.getProxySendHelper().sendAndReturn(POLICY, context.getWebDriver(), original, FIND_ELEMENTS_BY_TAG_NAME, new Object[]{using});
+		} catch (final IllegalAccessException | InvocationTargetException e) {
 			throw new NeotysWrappingException("Issue with NeoLoad proxy.", e);
 		}	
 	}
@@ -447,7 +407,7 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 			return original.getWrappedDriver();
 		}
 
-		return (WebDriver) wrapperUtils.wrapIfNecessary(webDriver, super.getWrappedDriver());
+		return (WebDriver) context.getWrapperUtils().wrapIfNecessary(context.getWebDriver(), super.getWrappedDriver());
 	}
 
 	@Override
@@ -456,7 +416,7 @@ public class RemoteWebElementWrapper extends RemoteWebElement {
 			return super.clone();
 		}
 
-		return wrapperUtils.wrapIfNecessary(webDriver, super.clone());
+		return context.getWrapperUtils().wrapIfNecessary(context.getWebDriver(), super.clone());
 	}
 
 	// automatically generated wrapper methods --------------------------------------------------------
@@ -29,15 +29,13 @@ package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriver.TargetLocator;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
@@ -56,10 +54,9 @@ public class TargetLocatorProxy {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
-    private static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = Arrays.asList(new String[]{"frame", "parentFrame", "window", "defaultContent",
-            "activeElement", "alert"});
-
-    private static final List<String> METHODS_ALWAYS_SEND = Arrays.asList(new String[]{});
+    private static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("targetlocator", Arrays.asList(new String[]{}),
+            Arrays.asList(new String[]{"frame", "parentFrame", "window", "defaultContent",
+            "activeElement", "alert"}), Collections.<String> emptyList());
 
     /** Constructor.
      * @param webDriver
@@ -73,7 +70,7 @@ public class TargetLocatorProxy {
 
     /** @return */
     public TargetLocator getProxy() {
-        return (TargetLocator)Proxy.newProxyInstance(TargetLocator.class.getClassLoader(), WrapperUtils.getInterfacesUsed(original.getClass(), TargetLocator.class), invocationHandler);
+        return WrapperUtils.newProxy(TargetLocator.class, original, invocationHandler);
     }
 
     /** Listens to calls on various methods. */
@@ -84,8 +81,7 @@ public class TargetLocatorProxy {
                 return method.invoke(original, args);
             }
 
-            return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-            		Collections.<String> emptyList(), webDriver, original, method, args);
+            return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, original, method, args);
         }
     };
 }
@@ -33,12 +33,16 @@ import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyFactory;
+import javassist.util.proxy.ProxyObject;
 import org.openqa.selenium.HasCapabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.interactions.HasInputDevices;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.neotys.selenium.proxies.MethodHandlers.*;
 
@@ -48,6 +52,9 @@ import static com.neotys.selenium.proxies.MethodHandlers.*;
  */
 public class WebDriverProxy {
 
+    /** Key: the class extended or the interface implemented by the proxy, value: the constructor of the proxy class. */
+    private static final ConcurrentMap<Class<?>, Constructor<?>> PROXY_CONSTRUCTORS = new ConcurrentHashMap<>();
+
     private WebDriverProxy(){
     }
 
@@ -105,24 +112,28 @@ public class WebDriverProxy {
             final HasCapabilities hasCapabilities = (HasCapabilities) webDriver;
             proxyConfig.setCapabilities(Optional.fromNullable(hasCapabilities.getCapabilities()));
         }
+        if (SeleniumProxyConfig.isEnabled()) {
+            proxyConfig.getProxySendHelper().installDocumentStartScripts(webDriver);
+        }
     }
 
     @SuppressWarnings("unchecked")
     private static <T extends WebDriver> T newInstance(final WebDriver webDriver, final SeleniumProxyConfig proxyConfig, final MethodHandler methodHandler){
-        final ProxyFactory factory = new ProxyFactory();
+        final Class<?> proxiedType;
         if(webDriver instanceof RemoteWebDriver){
-            factory.setSuperclass(NLRemoteWebDriver.class);
+            proxiedType = NLRemoteWebDriver.class;
         } else if (webDriver instanceof HasInputDevices) {
-            factory.setInterfaces(new Class[]{NLHasInputDeviceWebDriver.class});
+            proxiedType = NLHasInputDeviceWebDriver.class;
         }else {
-            factory.setInterfaces(new Class[]{NLWebDriver.class});
+            proxiedType = NLWebDriver.class;
         }
         final NLWebDriver nlWebDriver;
         try {
-            nlWebDriver = (NLWebDriver) factory.create(new Class<?>[0], new Object[0], methodHandler);
+            nlWebDriver = (NLWebDriver) getProxyConstructor(proxiedType).newInstance();
         } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
             throw new RuntimeException(e);
         }
+        ((ProxyObject) nlWebDriver).setHandler(methodHandler);
 
         if (!proxyConfig.isUsingPerfecto(webDriver)) {
             return (T) nlWebDriver;
@@ -131,4 +142,24 @@ public class WebDriverProxy {
         final WrapperUtils wrapperUtils = new WrapperUtils(proxyConfig);
         return (T) new NLPerfectoWebDriver((RemoteWebDriver) webDriver, nlWebDriver, wrapperUtils);
     }
+
+    /**
+     * @param proxiedType the class to extend or the interface to implement.
+     * @return the constructor of the proxy class, generated on first use.
+     * @throws NoSuchMethodException
+     */
+    private static Constructor<?> getProxyConstructor(final Class<?> proxiedType) throws NoSuchMethodException {
+        Constructor<?> constructor = PROXY_CONSTRUCTORS.get(proxiedType);
+        if (constructor == null) {
+            final ProxyFactory factory = new ProxyFactory();
+            if (proxiedType.isInterface()) {
+                factory.setInterfaces(new Class[]{proxiedType});
+            } else {
+                factory.setSuperclass(proxiedType);
+            }
+            constructor = factory.createClass().getConstructor();
+            PROXY_CONSTRUCTORS.putIfAbsent(proxiedType, constructor);
+        }
+        return constructor;
+    }
 }
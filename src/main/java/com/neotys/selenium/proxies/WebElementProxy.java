@@ -29,15 +29,13 @@ package com.neotys.selenium.proxies;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
-import com.neotys.selenium.proxies.helpers.ProxySendHelper;
+import com.neotys.selenium.proxies.helpers.InstrumentationPolicy;
 import com.neotys.selenium.proxies.helpers.SeleniumProxyConfig;
 import com.neotys.selenium.proxies.helpers.WrapperUtils;
 
@@ -56,10 +54,8 @@ public class WebElementProxy {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
-    static final List<String> METHODS_SEND_ON_EXCEPTION_ONLY = Arrays.asList(new String[]{"getTagName", "getAttribute", "getText", "findElements",
-            "findElement"});
-
-    static final List<String> METHODS_ALWAYS_SEND = Arrays.asList(new String[]{"click", "submit"});
+    static final InstrumentationPolicy POLICY = InstrumentationPolicy.create("webelement", Arrays.asList(new String[]{"click", "submit"}),
+            Arrays.asList(new String[]{"getTagName", "getAttribute", "getText", "findElements", "findElement"}), Collections.<String> emptyList());
 
     /** Constructor.
      * @param webDriver
@@ -74,7 +70,7 @@ public class WebElementProxy {
 
     /** @return */
     public WebElement getProxy() {
-        return (WebElement)Proxy.newProxyInstance(WebElement.class.getClassLoader(), WrapperUtils.getInterfacesUsed(original.getClass(), WebElement.class), invocationHandler);
+        return WrapperUtils.newProxy(WebElement.class, original, invocationHandler);
     }
     
     /** Listens to calls on various methods. */
@@ -85,8 +81,7 @@ public class WebElementProxy {
                 return method.invoke(original, args);
             }
 
-            return new ProxySendHelper(proxyConfig).sendAndReturn(METHODS_ALWAYS_SEND, METHODS_SEND_ON_EXCEPTION_ONLY,
-            		Collections.<String>emptyList(), webDriver, original, method, args);
+            return proxyConfig.getProxySendHelper().sendAndReturn(POLICY, webDriver, original, method, args);
         }
     };
 }
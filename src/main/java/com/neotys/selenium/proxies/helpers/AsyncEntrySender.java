@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+/** Sends entries from a background thread so the browser thread never waits on the server.
+ * Entries are put on a bounded queue and sent in batches of at most {@link #batchSize} entries, waiting at most
+ * {@link #lingerMillis} for a batch to fill up. Used for the Data Exchange API and for each {@link ResultSink}.
+ */
+class AsyncEntrySender {
+
+	/** Used when the configured queue size is not positive. */
+	static final int DEFAULT_QUEUE_SIZE = 10000;
+
+	/** Name of the background thread. */
+	private static final String THREAD_NAME = "NeoLoad-DataExchange-Sender";
+
+	/** Where the entries are sent. */
+	private final DataExchangeTransport dataExchangeTransport;
+
+	/** Where the entries are sent, for messages. */
+	private final String destination;
+
+	/** The option that sets the size of the queue, for messages. */
+	private final String queueSizeOption;
+
+	/** Entries waiting to be sent. */
+	private final BlockingQueue<Entry> queue;
+
+	/** Maximum number of entries sent in one call. */
+	private final int batchSize;
+
+	/** How long to wait for a batch to fill up before sending it anyway. */
+	private final long lingerMillis;
+
+	/** Number of entries queued but not sent yet (including the batch being sent). */
+	private final AtomicLong pending = new AtomicLong();
+
+	/** Number of entries dropped because the queue was full. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** Used to wake up threads waiting for a flush. */
+	private final Object flushLock = new Object();
+
+	private final Thread senderThread;
+
+	private volatile boolean running = true;
+
+	AsyncEntrySender(final DataExchangeTransport dataExchangeTransport, final int queueSize, final int batchSize, final long lingerMillis) {
+		this(dataExchangeTransport, "the Data Exchange API", THREAD_NAME, SeleniumProxyConfig.OPT_ASYNC_QUEUE_SIZE, queueSize, batchSize, lingerMillis);
+	}
+
+	/**
+	 * @param dataExchangeTransport where the entries are sent.
+	 * @param destination where the entries are sent, for messages.
+	 * @param threadName
+	 * @param queueSizeOption the option that sets the size of the queue, for messages.
+	 * @param queueSize
+	 * @param batchSize
+	 * @param lingerMillis
+	 */
+	AsyncEntrySender(final DataExchangeTransport dataExchangeTransport, final String destination, final String threadName,
+			final String queueSizeOption, final int queueSize, final int batchSize, final long lingerMillis) {
+		this.dataExchangeTransport = dataExchangeTransport;
+		this.destination = destination;
+		this.queueSizeOption = queueSizeOption;
+		if (queueSize < 1) {
+			SeleniumProxyConfig.errorMessage("Invalid value for " + queueSizeOption + ": " + queueSize + ". Using default value: "
+					+ DEFAULT_QUEUE_SIZE);
+		}
+		this.queue = new ArrayBlockingQueue<>(queueSize < 1 ? DEFAULT_QUEUE_SIZE : queueSize);
+		this.batchSize = Math.max(1, batchSize);
+		this.lingerMillis = Math.max(0, lingerMillis);
+
+		this.senderThread = new Thread(this::sendLoop, threadName);
+		this.senderThread.setDaemon(true);
+		this.senderThread.start();
+	}
+
+	/** Queue entries without blocking. Entries that do not fit in the queue are dropped and counted.
+	 * @param entries
+	 */
+	void offer(final List<Entry> entries) {
+		for (final Entry entry: entries) {
+			pending.incrementAndGet();
+			if (!queue.offer(entry)) {
+				pending.decrementAndGet();
+				if (dropped.incrementAndGet() == 1) {
+					SeleniumProxyConfig.errorMessage("The send queue of " + destination + " is full, entries are dropped. Increase "
+							+ queueSizeOption + ".");
+				}
+			}
+		}
+	}
+
+	/** Wait until every queued entry has been sent or the timeout expires.
+	 * @param timeoutMillis
+	 * @return true if everything was sent.
+	 */
+	boolean flush(final long timeoutMillis) {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (flushLock) {
+			while (pending.get() > 0) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0 || !senderThread.isAlive()) {
+					return false;
+				}
+				try {
+					flushLock.wait(remaining);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/** Flush the queue and stop the background thread.
+	 * @param timeoutMillis
+	 */
+	void close(final long timeoutMillis) {
+		if (!flush(timeoutMillis)) {
+			SeleniumProxyConfig.errorMessage(pending.get() + " entries could not be sent to " + destination + " before closing.");
+		}
+		if (dropped.get() > 0) {
+			SeleniumProxyConfig.errorMessage(dropped.get() + " entries were dropped because the send queue of " + destination + " was full.");
+		}
+		running = false;
+		senderThread.interrupt();
+	}
+
+	/** @return the number of entries dropped because the queue was full. */
+	long getDroppedCount() {
+		return dropped.get();
+	}
+
+	private void sendLoop() {
+		final List<Entry> batch = new ArrayList<>(batchSize);
+		while (running) {
+			try {
+				final Entry first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+
+				// wait a little for the batch to fill up.
+				final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					final long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0) {
+						break;
+					}
+					final Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+
+				send(batch);
+
+			} catch (final InterruptedException e) {
+				// closing: whatever is still queued has already been flushed or given up on.
+				running = false;
+			} finally {
+				pending.addAndGet(-batch.size());
+				batch.clear();
+				synchronized (flushLock) {
+					flushLock.notifyAll();
+				}
+			}
+		}
+	}
+
+	private void send(final List<Entry> batch) {
+		try {
+			SeleniumProxyConfig.debugMessage("Sending batch of " + batch.size() + " entries.");
+			dataExchangeTransport.addEntries(new ArrayList<>(batch));
+		} catch (final Exception e) {
+			// there is nobody to throw to on this thread.
+			SeleniumProxyConfig.errorMessage("Issue sending " + batch.size() + " entries to " + destination + ": " + e);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Estimates the offset between the clock of the browser and the clock of the JVM, like NTP does.
+ * <p>
+ * Each sample is a browser time read by a script, together with the JVM times just before and after the script. The
+ * browser time is assumed to be read at the midpoint of the round trip, so the error is at most half the round trip.
+ * The sample with the shortest round trip is kept, and a new estimate is started after a while to follow drift.
+ */
+final class ClockOffsetEstimator {
+
+	/** How long an estimate is kept before the next sample replaces it, in milliseconds. */
+	private final long refreshMillis;
+
+	/** Null until the first sample. */
+	private final AtomicReference<Estimate> estimate = new AtomicReference<>();
+
+	/** @param refreshMillis how long an estimate is kept before the next sample replaces it. */
+	ClockOffsetEstimator(final long refreshMillis) {
+		this.refreshMillis = refreshMillis;
+	}
+
+	/** Add a sample. Lock free.
+	 * @param requestTime the JVM time in milliseconds just before the script was sent.
+	 * @param responseTime the JVM time in milliseconds just after the result was received.
+	 * @param browserTime the browser time in milliseconds read by the script.
+	 */
+	void record(final long requestTime, final long responseTime, final double browserTime) {
+		final long roundTrip = responseTime - requestTime;
+		if (roundTrip < 0) {
+			// the JVM clock was adjusted during the round trip.
+			return;
+		}
+		final Estimate sample = new Estimate(browserTime - (requestTime + responseTime) / 2d, roundTrip, responseTime);
+		while (true) {
+			final Estimate current = estimate.get();
+			final boolean expired = current == null || responseTime - current.time >= refreshMillis;
+			if (!expired && roundTrip >= current.roundTrip) {
+				return;
+			}
+			// a better sample keeps the start of the estimate it improves.
+			if (estimate.compareAndSet(current, expired ? sample : sample.since(current.time))) {
+				SeleniumProxyConfig.debugMessage("Browser clock offset: " + Math.round(sample.offset) + " ms, round trip: " + roundTrip + " ms.");
+				return;
+			}
+		}
+	}
+
+	/** @return true once there was a sample. */
+	boolean isEstimated() {
+		return estimate.get() != null;
+	}
+
+	/** @return the browser time minus the JVM time in milliseconds, 0 if not estimated yet. */
+	double getOffset() {
+		final Estimate current = estimate.get();
+		return current == null ? 0 : current.offset;
+	}
+
+	/**
+	 * @param browserTime a time of the browser clock in milliseconds since the epoch.
+	 * @return the same time on the JVM clock.
+	 */
+	long toJVMTime(final double browserTime) {
+		return Math.round(browserTime - getOffset());
+	}
+
+	/** Immutable so it can be replaced atomically. */
+	private static final class Estimate {
+
+		final double offset;
+		final long roundTrip;
+
+		/** When the estimate was started, to know when to start a new one. */
+		final long time;
+
+		Estimate(final double offset, final long roundTrip, final long time) {
+			this.offset = offset;
+			this.roundTrip = roundTrip;
+			this.time = time;
+		}
+
+		/** @return the same estimate, started at the given time. */
+		Estimate since(final long startTime) {
+			return new Estimate(offset, roundTrip, startTime);
+		}
+	}
+}
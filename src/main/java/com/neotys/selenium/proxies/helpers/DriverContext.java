@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import org.openqa.selenium.WebDriver;
+
+/** What the wrappers of one driver share: the driver, its config and what wraps returned values.
+ * <p>
+ * Element wrappers only keep the original element and this context, so a script holding many elements does not keep
+ * helpers alive per element.
+ */
+public final class DriverContext {
+
+	/** Help us get info about the current page (title and url). */
+	private final WebDriver webDriver;
+
+	/** Config settings. */
+	private final SeleniumProxyConfig proxyConfig;
+
+	/** Wrap returned types with our proxies. */
+	private final WrapperUtils wrapperUtils;
+
+	/**
+	 * @param webDriver
+	 * @param proxyConfig
+	 * @param wrapperUtils
+	 */
+	public DriverContext(final WebDriver webDriver, final SeleniumProxyConfig proxyConfig, final WrapperUtils wrapperUtils) {
+		this.webDriver = webDriver;
+		this.proxyConfig = proxyConfig;
+		this.wrapperUtils = wrapperUtils;
+	}
+
+	public WebDriver getWebDriver() {
+		return webDriver;
+	}
+
+	public SeleniumProxyConfig getProxyConfig() {
+		return proxyConfig;
+	}
+
+	public WrapperUtils getWrapperUtils() {
+		return wrapperUtils;
+	}
+
+	/** @return the send helper shared by all the proxies of the driver. */
+	public ProxySendHelper getProxySendHelper() {
+		return proxyConfig.getProxySendHelper();
+	}
+}
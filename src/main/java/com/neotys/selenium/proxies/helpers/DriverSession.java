@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** The state of one driver that outlives a single call, such as what was already sent for the current page.
+ * <p>
+ * Owned by the {@link SeleniumProxyConfig} of the driver, so drivers running in the same JVM never share or wait on
+ * each other's state. Nothing is locked: the state is either volatile or replaced with compare-and-set.
+ */
+final class DriverSession {
+
+	/** Give up on the page context script after this many failures in a row. */
+	private static final int MAX_PAGE_CONTEXT_SCRIPT_FAILURES = 3;
+
+	/** Whether we use navigation timing or not. */
+	private volatile boolean navigationTimingActive = SeleniumProxyConfig.isNavigationTimingEnabled();
+
+	/** Whether the page context is read with one script. Turned off after several failures in a row. */
+	private volatile boolean pageContextScriptActive = true;
+
+	/** Whether pending soft navigations are waited for. Turned off if the wait script fails, they are then sent late. */
+	private volatile boolean softNavigationWaitActive = true;
+
+	/** Number of times in a row the page context script failed. */
+	private final AtomicInteger pageContextScriptFailures = new AtomicInteger();
+
+	/** The navigation whose values were last sent. */
+	private final AtomicReference<SentNavigation> sentNavigation = new AtomicReference<>(SentNavigation.NONE);
+
+	/** Shared by all the proxies of the driver, created on first use. */
+	private final AtomicReference<ProxySendHelper> sendHelper = new AtomicReference<>();
+
+	/** The offset between the clocks of the browser and of the JVM. */
+	private final ClockOffsetEstimator clockOffset =
+			new ClockOffsetEstimator(SeleniumProxyConfig.getLongSetting(SeleniumProxyConfig.OPT_CLOCK_OFFSET_REFRESH_MS, 60000));
+
+	/**
+	 * @param proxyConfig the config owning this session.
+	 * @return the send helper of the driver.
+	 */
+	ProxySendHelper getSendHelper(final SeleniumProxyConfig proxyConfig) {
+		final ProxySendHelper existing = sendHelper.get();
+		if (existing != null) {
+			return existing;
+		}
+		sendHelper.compareAndSet(null, new ProxySendHelper(proxyConfig));
+		return sendHelper.get();
+	}
+
+	ClockOffsetEstimator getClockOffset() {
+		return clockOffset;
+	}
+
+	boolean isNavigationTimingActive() {
+		return navigationTimingActive;
+	}
+
+	/** If anything ever goes wrong with navigation timing then give up for this driver. */
+	void disableNavigationTiming() {
+		navigationTimingActive = false;
+	}
+
+	boolean isPageContextScriptActive() {
+		return pageContextScriptActive;
+	}
+
+	boolean isSoftNavigationWaitActive() {
+		return softNavigationWaitActive;
+	}
+
+	/** Send soft navigations with the first action after they settled, for example because the driver does not support
+	 * asynchronous scripts or its script timeout is too short. */
+	void disableSoftNavigationWait() {
+		softNavigationWaitActive = false;
+	}
+
+	void pageContextScriptSucceeded() {
+		if (pageContextScriptFailures.get() != 0) {
+			pageContextScriptFailures.set(0);
+		}
+	}
+
+	/** An alert or a page being unloaded can make the script fail once, only give up if it keeps failing. */
+	void pageContextScriptFailed() {
+		if (pageContextScriptFailures.incrementAndGet() >= MAX_PAGE_CONTEXT_SCRIPT_FAILURES) {
+			pageContextScriptActive = false;
+		}
+	}
+
+	/** Keep the values that were not sent yet for the navigation, and remember them as sent.
+	 * <p>
+	 * A navigation is identified by its time origin, so the values of a page are sent once even if several actions
+	 * are done on it, while values that only become available later (such as the largest contentful paint) or that
+	 * keep changing (such as the cumulative layout shift) are still sent by a later action, each time they change.
+	 * @param timeOrigin the time origin of the navigation, or null if unknown in which case everything is sent.
+	 * @param advancedValues key -> label, value -> value.
+	 * @return the values to send.
+	 */
+	Map<String, Long> removeSent(final Double timeOrigin, final Map<String, Long> advancedValues) {
+		if (timeOrigin == null || advancedValues.isEmpty()) {
+			return advancedValues;
+		}
+		while (true) {
+			final SentNavigation previous = sentNavigation.get();
+			final boolean sameNavigation = previous.timeOrigin == timeOrigin.doubleValue();
+			final Map<String, Long> toSend;
+			if (sameNavigation) {
+				toSend = new LinkedHashMap<>(advancedValues);
+				toSend.entrySet().removeAll(previous.values.entrySet());
+				if (toSend.isEmpty()) {
+					// nothing has changed so don't send the same data over again.
+					return Collections.emptyMap();
+				}
+			} else {
+				toSend = advancedValues;
+			}
+			final Map<String, Long> values = sameNavigation ? new HashMap<>(previous.values) : new HashMap<String, Long>();
+			values.putAll(toSend);
+			if (sentNavigation.compareAndSet(previous, new SentNavigation(timeOrigin, values))) {
+				return toSend;
+			}
+		}
+	}
+
+	/** Immutable so it can be replaced atomically. */
+	private static final class SentNavigation {
+
+		static final SentNavigation NONE = new SentNavigation(Double.NaN, Collections.<String, Long>emptyMap());
+
+		final double timeOrigin;
+
+		/** The values already sent for the navigation, by label. */
+		final Map<String, Long> values;
+
+		SentNavigation(final double timeOrigin, final Map<String, Long> values) {
+			this.timeOrigin = timeOrigin;
+			this.values = values;
+		}
+	}
+}
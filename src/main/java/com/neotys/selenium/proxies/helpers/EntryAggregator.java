@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.Status;
+import com.neotys.rest.dataexchange.util.Statuses;
+
+/** Aggregates entries per path over a time window and replaces them with one summary per path.
+ * <p>
+ * For each path the summary is an entry with the mean value on the path itself, followed by the count, min, max and
+ * the configured percentiles as sub-paths. Failed entries are never aggregated so errors stay visible one by one.
+ * Windows are closed by the next entry, or by {@link #closeExpired(long)} which is called periodically.
+ */
+class EntryAggregator {
+
+	static final String COUNT_NAME = "Count";
+	static final String MIN_NAME = "Min";
+	static final String MAX_NAME = "Max";
+	static final String PERCENTILE_PREFIX = "Percentile ";
+
+	private static final String COUNT_UNIT = "count";
+
+	/** Status code of the summaries. */
+	private static final String AGGREGATED_STATUS_CODE = "aggregated";
+
+	/** Length of a window in milliseconds. */
+	private final long windowMillis;
+
+	/** Percentiles to report, between 0 and 100. */
+	private final double[] percentiles;
+
+	/** Key: path joined by slashes. Insertion ordered so summaries come out in a stable order. */
+	private final Map<String, PathStatistics> statisticsByPath = new LinkedHashMap<>();
+
+	private long windowStart = -1;
+
+	/**
+	 * @param windowMillis
+	 * @param percentiles between 0 and 100.
+	 */
+	EntryAggregator(final long windowMillis, final double[] percentiles) {
+		this.windowMillis = Math.max(1, windowMillis);
+		this.percentiles = percentiles.clone();
+	}
+
+	/** Record entries in the current window.
+	 * @param entries
+	 * @param now the current time in milliseconds.
+	 * @return the entries to send now: failed entries plus the summaries of the previous window if it is over.
+	 */
+	synchronized List<Entry> aggregate(final List<Entry> entries, final long now) {
+		List<Entry> toSend = Collections.emptyList();
+		if (windowStart >= 0 && now - windowStart >= windowMillis) {
+			toSend = new ArrayList<>(summarize());
+		}
+		if (windowStart < 0) {
+			windowStart = now;
+		}
+
+		for (final Entry entry: entries) {
+			if (entry.getValue() == null || isFailure(entry)) {
+				if (toSend.isEmpty()) {
+					toSend = new ArrayList<>();
+				}
+				toSend.add(entry);
+				continue;
+			}
+			final List<String> path = entry.getPath();
+			final String key = String.join("/", path);
+			PathStatistics statistics = statisticsByPath.get(key);
+			if (statistics == null) {
+				statistics = new PathStatistics(path, entry.getUnit());
+				statisticsByPath.put(key, statistics);
+			}
+			statistics.histogram.record(entry.getValue());
+			statistics.url = entry.getUrl();
+		}
+		return toSend;
+	}
+
+	/** Close the current window if it is over, even if no entry was recorded since.
+	 * @param now the current time in milliseconds.
+	 * @return the summaries of the window if it was closed.
+	 */
+	synchronized List<Entry> closeExpired(final long now) {
+		if (windowStart >= 0 && now - windowStart >= windowMillis) {
+			return summarize();
+		}
+		return Collections.emptyList();
+	}
+
+	/** @return the summaries of the current window, which is then closed. */
+	synchronized List<Entry> drain() {
+		return summarize();
+	}
+
+	private List<Entry> summarize() {
+		final List<Entry> summaries = new ArrayList<>(statisticsByPath.size() * (4 + percentiles.length));
+		final Status status = Statuses.newStatus(AGGREGATED_STATUS_CODE, null);
+		for (final Iterator<PathStatistics> iterator = statisticsByPath.values().iterator(); iterator.hasNext();) {
+			final PathStatistics statistics = iterator.next();
+			final LatencyHistogram histogram = statistics.histogram;
+			if (histogram.getCount() == 0) {
+				// paths that were not seen during a window are forgotten.
+				iterator.remove();
+				continue;
+			}
+			summaries.add(newEntry(statistics, null, histogram.getMean(), statistics.unit, status));
+			summaries.add(newEntry(statistics, COUNT_NAME, histogram.getCount(), COUNT_UNIT, status));
+			summaries.add(newEntry(statistics, MIN_NAME, histogram.getMin(), statistics.unit, status));
+			summaries.add(newEntry(statistics, MAX_NAME, histogram.getMax(), statistics.unit, status));
+			for (final double percentile: percentiles) {
+				summaries.add(newEntry(statistics, PERCENTILE_PREFIX + formatPercentile(percentile),
+						histogram.getPercentile(percentile), statistics.unit, status));
+			}
+			// the histogram and its buckets are reused by the next window.
+			histogram.reset();
+		}
+		windowStart = -1;
+		return summaries;
+	}
+
+	private Entry newEntry(final PathStatistics statistics, final String name, final double value, final String unit, final Status status) {
+		final List<String> path;
+		if (name == null) {
+			path = statistics.path;
+		} else {
+			path = new ArrayList<>(statistics.path.size() + 1);
+			path.addAll(statistics.path);
+			path.add(name);
+		}
+		final EntryBuilder entryBuilder = new EntryBuilder(path, windowStart);
+		entryBuilder.url(statistics.url);
+		entryBuilder.status(status);
+		entryBuilder.value(value);
+		entryBuilder.unit(unit);
+		return entryBuilder.build();
+	}
+
+	private static boolean isFailure(final Entry entry) {
+		return entry.getStatus() != null && Status.State.FAIL.equals(entry.getStatus().getState());
+	}
+
+	/** @return 90 for 90.0 and 99.9 for 99.9. */
+	static String formatPercentile(final double percentile) {
+		if (percentile == Math.rint(percentile)) {
+			return Long.toString((long) percentile);
+		}
+		return Double.toString(percentile);
+	}
+
+	/** Parse a comma separated list of percentiles such as "50,90,99.9".
+	 * @param value
+	 * @return the percentiles that could be parsed.
+	 */
+	static double[] parsePercentiles(final String value) {
+		final List<Double> parsed = new ArrayList<>();
+		for (final String item: value.split(",")) {
+			try {
+				final double percentile = Double.parseDouble(item.trim());
+				if (percentile > 0 && percentile <= 100) {
+					parsed.add(percentile);
+				}
+			} catch (final NumberFormatException e) {
+				SeleniumProxyConfig.errorMessage("Invalid percentile ignored: " + item);
+			}
+		}
+		final double[] percentiles = new double[parsed.size()];
+		for (int i = 0; i < percentiles.length; i++) {
+			percentiles[i] = parsed.get(i);
+		}
+		return percentiles;
+	}
+
+	/** What is known about one path during the current window. */
+	private static final class PathStatistics {
+		final List<String> path;
+		final String unit;
+		final LatencyHistogram histogram = new LatencyHistogram();
+		String url;
+
+		PathStatistics(final List<String> path, final String unit) {
+			this.path = path;
+			this.unit = unit;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.Status;
+import com.neotys.rest.dataexchange.model.StatusBuilder;
+
+/** Converts entries to bytes and back so they can be stored locally. */
+final class EntryCodec {
+
+	private EntryCodec() {
+	}
+
+	/**
+	 * @param entry
+	 * @return the serialized entry.
+	 */
+	static byte[] encode(final Entry entry) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (final DataOutputStream out = new DataOutputStream(bytes)) {
+			final List<String> path = entry.getPath();
+			out.writeShort(path.size());
+			for (final String pathElement: path) {
+				writeString(out, pathElement);
+			}
+			out.writeLong(entry.getTimestamp());
+			final Double value = entry.getValue();
+			out.writeBoolean(value != null);
+			if (value != null) {
+				out.writeDouble(value);
+			}
+			writeString(out, entry.getUnit());
+			writeString(out, entry.getUrl());
+
+			final Status status = entry.getStatus();
+			out.writeBoolean(status != null);
+			if (status != null) {
+				writeString(out, status.getCode());
+				writeString(out, status.getMessage());
+				writeString(out, status.getState() == null ? null : status.getState().name());
+			}
+		} catch (final IOException e) {
+			// cannot happen when writing to memory.
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/** Read an entry written by {@link #encode(Entry)}, starting at the current position of the buffer.
+	 * @param buffer
+	 * @return the entry.
+	 */
+	static Entry decode(final ByteBuffer buffer) {
+		final int pathSize = buffer.getShort() & 0xFFFF;
+		final List<String> path = new ArrayList<>(pathSize);
+		for (int i = 0; i < pathSize; i++) {
+			path.add(readString(buffer));
+		}
+		final EntryBuilder entryBuilder = new EntryBuilder(path, buffer.getLong());
+		if (buffer.get() != 0) {
+			entryBuilder.value(buffer.getDouble());
+		}
+		entryBuilder.unit(readString(buffer));
+		entryBuilder.url(readString(buffer));
+
+		if (buffer.get() != 0) {
+			final StatusBuilder statusBuilder = new StatusBuilder();
+			statusBuilder.code(readString(buffer));
+			statusBuilder.message(readString(buffer));
+			final String state = readString(buffer);
+			if (state != null) {
+				statusBuilder.state(Status.State.valueOf(state));
+			}
+			entryBuilder.status(statusBuilder.build());
+		}
+		return entryBuilder.build();
+	}
+
+	/** Strings are written as a length (-1 for null) followed by UTF-8 bytes. */
+	static void writeString(final DataOutputStream out, final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(final ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
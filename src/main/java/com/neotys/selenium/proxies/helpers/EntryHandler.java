@@ -34,8 +34,12 @@ import java.net.URLDecoder;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,11 +47,14 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.odata2.api.exception.ODataException;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.neotys.rest.dataexchange.client.DataExchangeAPIClient;
 import com.neotys.rest.dataexchange.model.Entry;
 import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.Status;
 import com.neotys.rest.dataexchange.model.TimerBuilder;
 import com.neotys.rest.dataexchange.util.Statuses;
 import com.neotys.rest.error.NeotysAPIException;
@@ -57,15 +64,41 @@ public class EntryHandler {
 	/** Where to send the data and how to collect it. */
 	private final SeleniumProxyConfig proxyConfig;
 
-	/** When the timer was started. */
-	private final long startTime;
+	/** Measures the duration of the action. */
+	private final MonotonicTimer timer;
+
+	/** The duration of the action in milliseconds when it was measured before the handler was created. NaN to read
+	 * the timer when the entry is sent. */
+	private double duration = Double.NaN;
 
 	/** Temporarily stores an exception if one was thrown. */
 	private RuntimeException exception = null;
 
-	private EntryHandler(final SeleniumProxyConfig delegateConfig) {
+	/** The start of the navigation on the JVM clock, the timestamp of the navigation values. -1 if unknown. */
+	private long navigationStart = -1;
+
+	/** Advanced value labels split on slashes. The labels are a small fixed set so they are only split once. */
+	private static final ConcurrentMap<String, List<String>> ADVANCED_PATH_CACHE = new ConcurrentHashMap<>();
+
+	private static final Splitter PATH_SPLITTER = Splitter.on("/").omitEmptyStrings();
+
+	/** Advanced values measured at the time of the action rather than relative to the start of the navigation. */
+	private static final Set<String> ACTION_VALUE_LABELS = ImmutableSet.of(
+			ProxySendHelper.SOFT_NAVIGATION_LABEL, ProxySendHelper.JS_HEAP_USED_LABEL, ProxySendHelper.DOM_NODES_LABEL);
+
+	/** Stop caching advanced value labels past this size in case labels are not a fixed set. */
+	private static final int ADVANCED_PATH_CACHE_MAX_SIZE = 256;
+
+	/** Units of the advanced values that are not durations. */
+	private static final Map<String, String> ADVANCED_VALUE_UNITS = ImmutableMap.of(
+			ProxySendHelper.TRANSFER_SIZE_LABEL, "bytes",
+			ProxySendHelper.CUMULATIVE_LAYOUT_SHIFT_LABEL, "score x1000",
+			ProxySendHelper.JS_HEAP_USED_LABEL, "bytes",
+			ProxySendHelper.DOM_NODES_LABEL, "count");
+
+	private EntryHandler(final SeleniumProxyConfig delegateConfig, final MonotonicTimer timer) {
 		this.proxyConfig = delegateConfig;
-		this.startTime = System.currentTimeMillis();
+		this.timer = timer;
 	}
 
 	/**
@@ -73,7 +106,16 @@ public class EntryHandler {
 	 * @return
 	 */
 	public static EntryHandler start(final SeleniumProxyConfig proxyConfig) {
-		return new EntryHandler(proxyConfig);
+		return new EntryHandler(proxyConfig, MonotonicTimer.start());
+	}
+
+	/** Create a handler for a timer that was already started, so no handler is allocated for calls that send nothing.
+	 * @param proxyConfig
+	 * @param timer started when the action started.
+	 * @return
+	 */
+	static EntryHandler start(final SeleniumProxyConfig proxyConfig, final MonotonicTimer timer) {
+		return new EntryHandler(proxyConfig, timer);
 	}
 
 	/** @param exception the exception to set */
@@ -81,6 +123,18 @@ public class EntryHandler {
 		this.exception = exception;
 	}
 
+	/** @param duration the duration of the action in milliseconds, measured as soon as it ended so that collecting the
+	 * page context afterwards is not included. */
+	void setDuration(final double duration) {
+		this.duration = duration;
+	}
+
+	/** @param navigationStart the start of the navigation on the JVM clock, used as the timestamp of the navigation values
+	 * so they line up with the rest of the timeline whatever the clock of the browser. */
+	void setNavigationStart(final long navigationStart) {
+		this.navigationStart = navigationStart;
+	}
+
 	/** Collects data, sends the data to NeoLoad, and throws the stored Exception if there is one.
 	 * @param advancedValues key -> label, value -> value.
 	 */
@@ -116,60 +170,83 @@ public class EntryHandler {
 	 */
 	void sendData(final String currentURL, final String pageTitle, final String methodName, final Map<String, Long> advancedValues)
 			throws GeneralSecurityException, IOException, URISyntaxException, NeotysAPIException, ODataException {
-		if (!proxyConfig.getDataExchangeAPIClient().isPresent()) {
-			throw new RuntimeException("The DataExchangeAPIClient was not initialized properly.");
+		if (!proxyConfig.getDataExchangeTransport().isPresent()) {
+			throw new RuntimeException("The Data Exchange transport was not initialized properly.");
 		}
 
 		// set the data.
+		final double value = Double.isNaN(duration) ? timer.getElapsedMillis() : duration;
 		final List<String> entryPath = createPath(currentURL, pageTitle);
-		final EntryBuilder ebNormal = new EntryBuilder(entryPath, startTime);
-		ebNormal.url(currentURL);
-		ebNormal.status(Statuses.newStatus(methodName, exception));
-		final double value = (double)System.currentTimeMillis() - startTime;
-		ebNormal.value(value);
-		ebNormal.unit(TimerBuilder.DEFAULT_UNIT);
-
-		final List<Entry> entriesToSend = new ArrayList<>();
-		entriesToSend.add(ebNormal.build());
-		
+		final Status status = Statuses.newStatus(methodName, exception);
+
+		final List<Entry> entriesToSend = new ArrayList<>(advancedValues.size() + 1);
+		entriesToSend.add(newEntry(entryPath, currentURL, status, value, TimerBuilder.DEFAULT_UNIT, timer.getStartTimestamp()));
+
 		for (final Map.Entry<String, Long> mapEntry: advancedValues.entrySet()) {
-		    final List<String> advancedPath = new ArrayList<>(entryPath);
-		    
-		    final String[] pathEntries = mapEntry.getKey().split("/");
-		    advancedPath.addAll(Arrays.asList(pathEntries));
-
-		    final EntryBuilder ebAdv = new EntryBuilder(advancedPath, startTime);
-		    ebAdv.url(currentURL);
-		    ebAdv.status(Statuses.newStatus(methodName, exception));
-		    ebAdv.value(value);
-	        ebAdv.unit(TimerBuilder.DEFAULT_UNIT);
-	        ebAdv.value(Double.valueOf(mapEntry.getValue()));
-		    
-		    entriesToSend.add(ebAdv.build());
+		    final List<String> advancedPathEntries = getAdvancedPathEntries(mapEntry.getKey());
+		    final List<String> advancedPath = new ArrayList<>(entryPath.size() + advancedPathEntries.size());
+		    advancedPath.addAll(entryPath);
+		    advancedPath.addAll(advancedPathEntries);
+
+		    final String unit = ADVANCED_VALUE_UNITS.get(mapEntry.getKey());
+		    final long timestamp = navigationStart < 0 || ACTION_VALUE_LABELS.contains(mapEntry.getKey())
+		    		? timer.getStartTimestamp() : navigationStart;
+		    entriesToSend.add(newEntry(advancedPath, currentURL, status, mapEntry.getValue(),
+		    		unit == null ? TimerBuilder.DEFAULT_UNIT : unit, timestamp));
 		}
 		
         // send the data.
-        final DataExchangeAPIClient dataExchangeAPIClient = proxyConfig.getDataExchangeAPIClient().get();
-        
-        for (final Entry entry: entriesToSend) {
-            SeleniumProxyConfig.debugMessage("Sending entry. URL: " + currentURL + ", Title: " + pageTitle + ", Entry: "+ entry);
+        if (proxyConfig.isDebugEnabled()) {
+            for (final Entry entry: entriesToSend) {
+                SeleniumProxyConfig.debugMessage("Sending entry. URL: " + currentURL + ", Title: " + pageTitle + ", Entry: "+ entry);
+            }
         }
         
-        dataExchangeAPIClient.addEntries(entriesToSend);
+        proxyConfig.addEntries(entriesToSend);
+	}
+
+	private Entry newEntry(final List<String> path, final String currentURL, final Status status, final double value,
+			final String unit, final long timestamp) {
+		final EntryBuilder entryBuilder = new EntryBuilder(path, timestamp);
+		entryBuilder.url(currentURL);
+		entryBuilder.status(status);
+		entryBuilder.value(value);
+		entryBuilder.unit(unit);
+		return entryBuilder.build();
+	}
+
+	/**
+	 * @param label the label of an advanced value. A slash (/) adds another path element.
+	 * @return the path elements of the label.
+	 */
+	private static List<String> getAdvancedPathEntries(final String label) {
+		final List<String> cached = ADVANCED_PATH_CACHE.get(label);
+		if (cached != null) {
+			return cached;
+		}
+		final List<String> pathEntries = Collections.unmodifiableList(Arrays.asList(label.split("/")));
+		if (ADVANCED_PATH_CACHE.size() < ADVANCED_PATH_CACHE_MAX_SIZE) {
+			ADVANCED_PATH_CACHE.putIfAbsent(label, pathEntries);
+		}
+		return pathEntries;
 	}
 
 	List<String> createPath(final String currentURL, final String pageTitle) {
 		final List<String> path = proxyConfig.newPath();
+		final int prefixSize = path.size();
 
 		final String customName = proxyConfig.getCustomName();
         if (customName != null) {
-            final ArrayList<String> pathItems = Lists.newArrayList(Splitter.on("/").omitEmptyStrings().split(customName));
+            final ArrayList<String> pathItems = Lists.newArrayList(PATH_SPLITTER.split(customName));
             path.addAll(pathItems);
 			// make sure the custom name is only used once.
 			proxyConfig.setCustomName(null);
 		} else if (PathNamingPolicy.URL.equals(proxyConfig.getPathNamingPolicy())) {
-			final String prettyURL = getPrettyURL(currentURL, proxyConfig.getRegexToCleanURLs());
-            path.addAll(Lists.newArrayList(Splitter.on("/").omitEmptyStrings().split(prettyURL)));
+			if (currentURL == null) {
+				path.addAll(createURLPath(currentURL));
+			} else {
+				path.addAll(proxyConfig.getURLPathCache().get(currentURL, this::createURLPath));
+			}
 
 		} else if (PathNamingPolicy.ACTION.equals(proxyConfig.getPathNamingPolicy())) {
 			path.add(proxyConfig.getLastAction());
@@ -178,21 +255,42 @@ public class EntryHandler {
 		    if (pageTitle == null) {
 		        path.add(pageTitle);
 		    } else {
-		        path.addAll(Lists.newArrayList(Splitter.on("/").omitEmptyStrings().split(pageTitle)));
+		        path.addAll(proxyConfig.getTitlePathCache().get(pageTitle, EntryHandler::splitPath));
 		    }
 
 		} else {
 			throw new RuntimeException("Unrecognized PathNamingPolicy");
 		}
 		
-		return path;
+		return SeleniumProxyConfig.limitPathCardinality(path, prefixSize);
+	}
+
+	/**
+	 * @param url
+	 * @return the path elements of the cleaned and templated URL.
+	 */
+	private List<String> createURLPath(final String url) {
+		String prettyURL = getPrettyURL(url, proxyConfig.getPatternToCleanURLs());
+		final Optional<URLTemplater> urlTemplater = proxyConfig.getURLTemplater();
+		if (urlTemplater.isPresent()) {
+			prettyURL = urlTemplater.get().apply(prettyURL);
+		}
+		return splitPath(prettyURL);
+	}
+
+	/**
+	 * @param value
+	 * @return the non-empty elements separated by slashes.
+	 */
+	private static List<String> splitPath(final String value) {
+		return Collections.unmodifiableList(Lists.newArrayList(PATH_SPLITTER.split(value)));
 	}
 
 	/**
 	 * @param urlStr
 	 * @return
 	 */
-	private static String getPrettyURL(final String urlStr, final String regexURLCleaner) {
+	private static String getPrettyURL(final String urlStr, final Pattern patternURLCleaner) {
 		String cleanedURL = urlStr;
 		try {
 			final URL url = new URL(StringUtils.trimToEmpty(urlStr));
@@ -202,8 +300,7 @@ public class EntryHandler {
 			// don't care.
 		}
 
-		final Pattern compile = Pattern.compile(regexURLCleaner);
-		final Matcher matcher = compile.matcher(cleanedURL);
+		final Matcher matcher = patternURLCleaner.matcher(cleanedURL);
 		if (matcher.matches()) {
 			final StringBuilder newURL = new StringBuilder();
 			for (int i = 1; i <= matcher.groupCount(); i++) {
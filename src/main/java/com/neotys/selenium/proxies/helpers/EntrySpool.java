@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+/** A write-ahead log of entries on the local disk.
+ * <p>
+ * Entries are appended to memory-mapped segment files and replayed in order to the Data Exchange API by a background
+ * thread. When the API is slow or unreachable the entries stay on disk and the replay is retried later, so the browser
+ * thread never waits on the server. Disk usage is capped by the segment size and the maximum number of segments: when
+ * the cap is reached the oldest segment is dropped and its unsent entries are counted. Only the segment being written
+ * and the segment being replayed are mapped in memory.
+ * <p>
+ * Segments left over by a previous run are replayed first. Delivery is at-least-once: entries of a segment that was
+ * partially replayed when the JVM stopped are sent again.
+ */
+class EntrySpool {
+
+	private static final String SEGMENT_PREFIX = "entries-";
+	private static final String SEGMENT_SUFFIX = ".spool";
+	private static final String LOCK_FILE = "spool.lock";
+
+	/** Each record is an int length followed by the serialized entry. A length of 0 marks the end of a segment. */
+	private static final int RECORD_HEADER_SIZE = 4;
+
+	private static final long MIN_RETRY_DELAY_MILLIS = 500;
+	private static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final int maxSegments;
+
+	/** Oldest first. */
+	private final Deque<Segment> segments = new ArrayDeque<>();
+
+	/** Prevents another process from using the same directory. */
+	private final FileLock directoryLock;
+
+	private long nextSequence = 0;
+
+	/** Entries that were lost because the disk cap was reached or an entry was too big. */
+	private long droppedCount = 0;
+
+	/** The last batch returned by {@link #peek(int)} and not committed yet. */
+	private Segment pendingSegment;
+	/** Position in the segment after each entry of the pending batch. */
+	private int[] pendingPositions = new int[0];
+	private int pendingCount;
+
+	private Thread replayThread;
+	private volatile boolean running;
+
+	/**
+	 * @param directory where the segment files are written.
+	 * @param segmentSize size of a segment file in bytes.
+	 * @param maxSegments maximum number of segment files.
+	 * @throws IOException if the directory cannot be used.
+	 */
+	EntrySpool(final Path directory, final int segmentSize, final int maxSegments) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = Math.max(2, maxSegments);
+
+		Files.createDirectories(directory);
+		final FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		this.directoryLock = lockChannel.tryLock();
+		if (directoryLock == null) {
+			lockChannel.close();
+			throw new IOException("The spool directory " + directory + " is used by another process.");
+		}
+
+		recoverSegments();
+	}
+
+	/** Pick up segments written by a previous run so they are replayed first. */
+	private void recoverSegments() throws IOException {
+		final TreeMap<Long, Path> existing = new TreeMap<>();
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (final Path file: stream) {
+				final String name = file.getFileName().toString();
+				try {
+					existing.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+				} catch (final NumberFormatException e) {
+					// not one of ours.
+				}
+			}
+		}
+		for (final java.util.Map.Entry<Long, Path> mapEntry: existing.entrySet()) {
+			final Segment segment = Segment.recover(mapEntry.getValue(), mapEntry.getKey());
+			if (segment.records == 0) {
+				segment.delete();
+				continue;
+			}
+			segments.addLast(segment);
+			nextSequence = mapEntry.getKey() + 1;
+		}
+		if (!segments.isEmpty()) {
+			SeleniumProxyConfig.debugMessage("Recovered " + getPendingCount() + " spooled entries from " + directory);
+		}
+	}
+
+	/** Write entries at the end of the log. Never throws: entries that cannot be written are dropped and counted.
+	 * @param entries
+	 */
+	synchronized void append(final List<Entry> entries) {
+		for (final Entry entry: entries) {
+			final byte[] record = EntryCodec.encode(entry);
+			if (record.length + RECORD_HEADER_SIZE > segmentSize) {
+				droppedCount++;
+				SeleniumProxyConfig.errorMessage("Entry too big for the spool segment size, dropped: " + entry);
+				continue;
+			}
+			try {
+				Segment tail = segments.peekLast();
+				if (tail == null || tail.sealed || !tail.hasRoom(record.length)) {
+					if (tail != null) {
+						tail.seal(tail != pendingSegment);
+					}
+					tail = openNewSegment();
+				}
+				tail.write(record);
+			} catch (final IOException e) {
+				droppedCount++;
+				SeleniumProxyConfig.errorMessage("Issue writing to the spool directory " + directory + ": " + e);
+			}
+		}
+		notifyAll();
+	}
+
+	private Segment openNewSegment() throws IOException {
+		while (segments.size() >= maxSegments) {
+			final Segment oldest = segments.pollFirst();
+			final long lost = oldest.records - oldest.readRecords;
+			droppedCount += lost;
+			if (oldest == pendingSegment) {
+				pendingSegment = null;
+			}
+			oldest.delete();
+			SeleniumProxyConfig.errorMessage("Spool is full, dropped the oldest segment with " + lost + " unsent entries. Total dropped: " + droppedCount);
+		}
+		final Path file = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+		final Segment segment = Segment.create(file, nextSequence++, segmentSize);
+		segments.addLast(segment);
+		return segment;
+	}
+
+	/** Read the next entries to replay without removing them. Call {@link #commit()} once they are sent.
+	 * @param max maximum number of entries to return.
+	 * @return the oldest entries not sent yet, possibly an empty list.
+	 */
+	synchronized List<Entry> peek(final int max) {
+		Segment head = segments.peekFirst();
+		// remove segments that are completely sent.
+		while (head != null && head.sealed && head.readRecords >= head.records) {
+			segments.pollFirst();
+			head.delete();
+			head = segments.peekFirst();
+		}
+		if (head == null || head.readRecords >= head.records) {
+			return Collections.emptyList();
+		}
+
+		final List<Entry> entries = new ArrayList<>(Math.min(max, (int) (head.records - head.readRecords)));
+		try {
+			final ByteBuffer buffer = head.readView();
+			final int[] positions = new int[Math.min(max, (int) (head.records - head.readRecords))];
+			int position = head.readPosition;
+			while (entries.size() < max && position < head.writePosition) {
+				final int length = buffer.getInt(position);
+				buffer.position(position + RECORD_HEADER_SIZE);
+				entries.add(EntryCodec.decode(buffer));
+				position += RECORD_HEADER_SIZE + length;
+				positions[entries.size() - 1] = position;
+			}
+			pendingSegment = head;
+			pendingPositions = positions;
+			pendingCount = entries.size();
+		} catch (final IOException | RuntimeException e) {
+			// a corrupted segment cannot be replayed: drop what is left of it.
+			droppedCount += head.records - head.readRecords;
+			SeleniumProxyConfig.errorMessage("Issue reading spool segment " + head.file + ", dropped: " + e);
+			segments.remove(head);
+			head.delete();
+			return Collections.emptyList();
+		}
+		return entries;
+	}
+
+	/** Mark the entries returned by the last call to {@link #peek(int)} as sent. */
+	synchronized void commit() {
+		commit(pendingCount);
+	}
+
+	/** Mark the first entries returned by the last call to {@link #peek(int)} as sent. The others are returned again
+	 * by the next peek.
+	 * @param count number of entries sent, at most the size of the last peeked batch.
+	 */
+	synchronized void commit(final int count) {
+		final Segment segment = pendingSegment;
+		pendingSegment = null;
+		final int sent = Math.min(count, pendingCount);
+		if (segment != null && sent > 0 && segments.contains(segment)) {
+			segment.readPosition = pendingPositions[sent - 1];
+			segment.readRecords += sent;
+			if (segment.sealed && segment.readRecords >= segment.records) {
+				segments.remove(segment);
+				segment.delete();
+			}
+		}
+		notifyAll();
+	}
+
+	/** @return the number of entries written but not sent yet. */
+	synchronized long getPendingCount() {
+		long pending = 0;
+		for (final Segment segment: segments) {
+			pending += segment.records - segment.readRecords;
+		}
+		return pending;
+	}
+
+	/** @return the number of entries lost because of the disk cap or an I/O issue. */
+	synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/** Start replaying entries to the Data Exchange API in the background.
+	 * @param dataExchangeTransport
+	 * @param batchSize
+	 */
+	synchronized void start(final DataExchangeTransport dataExchangeTransport, final int batchSize) {
+		if (replayThread != null) {
+			return;
+		}
+		running = true;
+		replayThread = new Thread(() -> replayLoop(dataExchangeTransport, Math.max(1, batchSize)), "NeoLoad-DataExchange-Spool");
+		replayThread.setDaemon(true);
+		replayThread.start();
+	}
+
+	private void replayLoop(final DataExchangeTransport dataExchangeTransport, final int batchSize) {
+		long retryDelay = MIN_RETRY_DELAY_MILLIS;
+		while (running) {
+			try {
+				List<Entry> batch;
+				synchronized (this) {
+					while ((batch = peek(batchSize)).isEmpty()) {
+						wait(1000);
+						if (!running) {
+							return;
+						}
+					}
+				}
+				try {
+					dataExchangeTransport.addEntries(batch);
+					commit();
+					retryDelay = MIN_RETRY_DELAY_MILLIS;
+				} catch (final PartialSendException e) {
+					// keep only the entries that did not go through.
+					commit(e.getSentCount());
+					SeleniumProxyConfig.debugMessage("Data Exchange API not available, retrying in " + retryDelay + " ms: " + e);
+					Thread.sleep(retryDelay);
+					retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+				} catch (final Exception e) {
+					// the entries stay in the spool, try again later.
+					SeleniumProxyConfig.debugMessage("Data Exchange API not available, retrying in " + retryDelay + " ms: " + e);
+					Thread.sleep(retryDelay);
+					retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+				}
+			} catch (final InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/** Wait until every spooled entry has been sent or the timeout expires.
+	 * @param timeoutMillis
+	 * @return true if everything was sent.
+	 */
+	synchronized boolean flush(final long timeoutMillis) {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (getPendingCount() > 0) {
+			final long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0 || replayThread == null || !replayThread.isAlive()) {
+				return false;
+			}
+			try {
+				wait(remaining);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Try to send what is left, then stop replaying. Unsent entries stay on disk for the next run.
+	 * @param timeoutMillis
+	 */
+	void close(final long timeoutMillis) {
+		if (!flush(timeoutMillis)) {
+			SeleniumProxyConfig.errorMessage(getPendingCount() + " entries were not sent and are kept in " + directory);
+		}
+		if (getDroppedCount() > 0) {
+			SeleniumProxyConfig.errorMessage(getDroppedCount() + " entries were dropped by the spool.");
+		}
+		running = false;
+		final Thread thread;
+		synchronized (this) {
+			thread = replayThread;
+			for (final Segment segment: segments) {
+				segment.release();
+			}
+		}
+		if (thread != null) {
+			thread.interrupt();
+		}
+		try {
+			directoryLock.release();
+			directoryLock.channel().close();
+		} catch (final IOException e) {
+			// ignored
+		}
+	}
+
+	/** One file of the log. */
+	private static final class Segment {
+		final long sequence;
+		final Path file;
+		final int size;
+
+		/** Null when the segment is not mapped. */
+		private FileChannel channel;
+		private MappedByteBuffer buffer;
+
+		int writePosition = 0;
+		int readPosition = 0;
+		long records = 0;
+		long readRecords = 0;
+
+		/** No more entries are written to a sealed segment. */
+		boolean sealed = false;
+
+		private Segment(final Path file, final long sequence, final int size) {
+			this.file = file;
+			this.sequence = sequence;
+			this.size = size;
+		}
+
+		static Segment create(final Path file, final long sequence, final int size) throws IOException {
+			final Segment segment = new Segment(file, sequence, size);
+			segment.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			segment.buffer = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			return segment;
+		}
+
+		static Segment recover(final Path file, final long sequence) throws IOException {
+			final Segment segment;
+			try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				segment = new Segment(file, sequence, (int) channel.size());
+				final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+				int position = 0;
+				while (position + RECORD_HEADER_SIZE <= segment.size) {
+					final int length = mapped.getInt(position);
+					if (length <= 0 || position + RECORD_HEADER_SIZE + length > segment.size) {
+						break;
+					}
+					position += RECORD_HEADER_SIZE + length;
+					segment.records++;
+				}
+				segment.writePosition = position;
+			}
+			segment.sealed = true;
+			return segment;
+		}
+
+		boolean hasRoom(final int recordLength) {
+			return writePosition + RECORD_HEADER_SIZE + recordLength <= size;
+		}
+
+		void write(final byte[] record) {
+			buffer.position(writePosition + RECORD_HEADER_SIZE);
+			buffer.put(record);
+			// the length is written last so a partially written record is never read back.
+			buffer.putInt(writePosition, record.length);
+			writePosition += RECORD_HEADER_SIZE + record.length;
+			records++;
+		}
+
+		/** @return a view of the segment for reading, mapping it again if necessary. */
+		ByteBuffer readView() throws IOException {
+			if (buffer == null) {
+				channel = FileChannel.open(file, StandardOpenOption.READ);
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			return buffer.duplicate();
+		}
+
+		/** @param release true to unmap the segment, which is done unless it is being replayed. */
+		void seal(final boolean release) {
+			sealed = true;
+			if (release) {
+				release();
+			}
+		}
+
+		void release() {
+			if (buffer != null && !buffer.isReadOnly()) {
+				buffer.force();
+			}
+			buffer = null;
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (final IOException e) {
+					// ignored
+				}
+				channel = null;
+			}
+		}
+
+		void delete() {
+			release();
+			try {
+				Files.deleteIfExists(file);
+			} catch (final IOException e) {
+				// a mapped file cannot always be deleted right away on Windows.
+				file.toFile().deleteOnExit();
+			}
+		}
+	}
+}
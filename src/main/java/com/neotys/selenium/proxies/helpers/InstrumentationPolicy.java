@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Which calls of a proxied type are timed and sent, decided once per {@link Method}.
+ * <p>
+ * The method names are only looked at the first time a method is called, the result is then kept as a set of flags.
+ * The defaults given by each proxy can be replaced from the configuration, see
+ * {@link SeleniumProxyConfig#OPT_INSTRUMENTATION_PREFIX}.
+ */
+public final class InstrumentationPolicy {
+
+	/** Matches all the methods of the type. */
+	public static final String ALL_METHODS = "*";
+
+	/** An entry is sent after each call. */
+	static final int ALWAYS_SEND = 1;
+
+	/** An entry is sent when the call throws. */
+	static final int SEND_ON_EXCEPTION = 1 << 1;
+
+	/** The call and its first argument become the last action. */
+	static final int SET_LAST_ACTION = 1 << 2;
+
+	private static final String ALWAYS_SEND_SUFFIX = ".always.send";
+	private static final String SEND_ON_EXCEPTION_SUFFIX = ".send.on.exception";
+
+	private final Set<String> methodsAlwaysSend;
+	private final Set<String> methodsSendOnException;
+	private final Set<String> methodsSetLastAction;
+
+	/** Bounded by the number of methods of the proxied type. */
+	private final ConcurrentMap<Method, Integer> flagsByMethod = new ConcurrentHashMap<>();
+
+	private InstrumentationPolicy(final Collection<String> methodsAlwaysSend, final Collection<String> methodsSendOnException,
+			final Collection<String> methodsSetLastAction) {
+		this.methodsAlwaysSend = Collections.unmodifiableSet(new HashSet<>(methodsAlwaysSend));
+		this.methodsSendOnException = Collections.unmodifiableSet(new HashSet<>(methodsSendOnException));
+		this.methodsSetLastAction = Collections.unmodifiableSet(new HashSet<>(methodsSetLastAction));
+	}
+
+	/**
+	 * @param typeName the name of the proxied type in the configuration, for example "webelement".
+	 * @param methodsAlwaysSend default methods for which an entry is always sent.
+	 * @param methodsSendOnException default methods for which an entry is sent when they throw.
+	 * @param methodsSetLastAction methods that set the last action.
+	 * @return the policy, with the defaults replaced by the configuration if it has any.
+	 */
+	public static InstrumentationPolicy create(final String typeName, final Collection<String> methodsAlwaysSend,
+			final Collection<String> methodsSendOnException, final Collection<String> methodsSetLastAction) {
+		final String prefix = SeleniumProxyConfig.OPT_INSTRUMENTATION_PREFIX + typeName;
+		return new InstrumentationPolicy(
+				getMethodNames(prefix + ALWAYS_SEND_SUFFIX, methodsAlwaysSend),
+				getMethodNames(prefix + SEND_ON_EXCEPTION_SUFFIX, methodsSendOnException),
+				methodsSetLastAction);
+	}
+
+	private static Collection<String> getMethodNames(final String key, final Collection<String> defaultValue) {
+		final String value = ModeHelper.getSetting(key, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		final Set<String> methodNames = new HashSet<>();
+		for (final String methodName: value.split(",")) {
+			if (!methodName.trim().isEmpty()) {
+				methodNames.add(methodName.trim());
+			}
+		}
+		return methodNames;
+	}
+
+	/**
+	 * @param method
+	 * @return the flags of the method.
+	 */
+	int getFlags(final Method method) {
+		final Integer flags = flagsByMethod.get(method);
+		if (flags != null) {
+			return flags;
+		}
+		final int computed = computeFlags(method.getName());
+		flagsByMethod.putIfAbsent(method, computed);
+		return computed;
+	}
+
+	private int computeFlags(final String methodName) {
+		int flags = 0;
+		if (matches(methodsAlwaysSend, methodName)) {
+			flags |= ALWAYS_SEND;
+		}
+		if (matches(methodsSendOnException, methodName)) {
+			flags |= SEND_ON_EXCEPTION;
+		}
+		if (matches(methodsSetLastAction, methodName)) {
+			flags |= SET_LAST_ACTION;
+		}
+		return flags;
+	}
+
+	private static boolean matches(final Set<String> methodNames, final String methodName) {
+		return methodNames.contains(methodName) || methodNames.contains(ALL_METHODS);
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.Status;
+
+/** Sends entries as plain JSON to the REST endpoints of the Data Exchange API, without the Olingo OData client.
+ * <p>
+ * A batch is serialized up front into JSON bodies, then each body is posted over HTTP/1.1. Response bodies are
+ * always read to the end so the JDK keeps the connection alive and reuses it for the next request. If a post fails
+ * after some entries were delivered, a {@link PartialSendException} tells the caller how many to skip on retry.
+ */
+class JsonDataExchangeTransport implements DataExchangeTransport {
+
+	static final String SESSION_RESOURCE = "Session";
+	static final String ENTRIES_RESOURCE = "Entries";
+
+	/** Separator of path elements in the Path property. */
+	private static final char PATH_SEPARATOR = '|';
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+	private static final int READ_TIMEOUT_MILLIS = 30000;
+
+	private static final Pattern SESSION_ID_PATTERN = Pattern.compile("\"SessionId\"\\s*:\\s*\"([^\"]*)\"");
+
+	private final String baseURL;
+	private final String apiKey;
+
+	/** Key: property name of the context (Software, Os, ...). */
+	private final Map<String, String> context;
+
+	private String sessionId;
+
+	/**
+	 * @param baseURL the URL of the service, such as http://localhost:7400/DataExchange/v1/Service.svc/
+	 * @param apiKey
+	 * @param context the context properties, in order.
+	 */
+	JsonDataExchangeTransport(final String baseURL, final String apiKey, final Map<String, String> context) {
+		this.baseURL = baseURL.endsWith("/") ? baseURL : baseURL + "/";
+		this.apiKey = apiKey;
+		this.context = new LinkedHashMap<>(context);
+	}
+
+	/** Open the session now rather than with the first entries, so that configuration issues show up early. */
+	synchronized String connect() throws IOException {
+		if (sessionId == null) {
+			final StringBuilder json = new StringBuilder(256);
+			json.append("{\"d\":{\"Context\":{");
+			boolean first = true;
+			for (final Map.Entry<String, String> property: context.entrySet()) {
+				if (!first) {
+					json.append(',');
+				}
+				first = false;
+				appendProperty(json, property.getKey(), property.getValue());
+			}
+			json.append('}');
+			if (apiKey != null && !apiKey.isEmpty()) {
+				json.append(',');
+				appendProperty(json, "ApiKey", apiKey);
+			}
+			json.append("}}");
+
+			final String response = post(SESSION_RESOURCE, json.toString().getBytes(StandardCharsets.UTF_8));
+			final Matcher matcher = SESSION_ID_PATTERN.matcher(response);
+			if (!matcher.find()) {
+				throw new IOException("No session ID in the response of the Data Exchange API: " + response);
+			}
+			sessionId = matcher.group(1);
+		}
+		return sessionId;
+	}
+
+	@Override
+	public void addEntries(final List<Entry> entries) throws IOException {
+		final String session = connect();
+		final List<byte[]> bodies = new ArrayList<>(entries.size());
+		final StringBuilder json = new StringBuilder(512);
+		for (final Entry entry: entries) {
+			json.setLength(0);
+			writeEntry(json, session, entry);
+			bodies.add(json.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		for (int i = 0; i < bodies.size(); i++) {
+			try {
+				post(ENTRIES_RESOURCE, bodies.get(i));
+			} catch (final IOException e) {
+				if (i == 0) {
+					throw e;
+				}
+				throw new PartialSendException(i, bodies.size(), e);
+			}
+		}
+	}
+
+	static void writeEntry(final StringBuilder json, final String session, final Entry entry) {
+		json.append("{\"d\":{");
+		appendProperty(json, "SessionId", session);
+		json.append(",\"Path\":");
+		json.append('"');
+		final List<String> path = entry.getPath();
+		for (int i = 0; i < path.size(); i++) {
+			if (i > 0) {
+				json.append(PATH_SEPARATOR);
+			}
+			appendEscaped(json, path.get(i));
+		}
+		json.append('"');
+		json.append(",\"Timestamp\":").append(entry.getTimestamp());
+		if (entry.getValue() != null) {
+			final double value = entry.getValue().doubleValue();
+			// JSON has no literal for NaN or infinity.
+			json.append(",\"Value\":");
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				json.append("null");
+			} else {
+				json.append(value);
+			}
+		}
+		if (entry.getUnit() != null) {
+			json.append(',');
+			appendProperty(json, "Unit", entry.getUnit());
+		}
+		if (entry.getUrl() != null) {
+			json.append(',');
+			appendProperty(json, "Url", entry.getUrl());
+		}
+		final Status status = entry.getStatus();
+		if (status != null) {
+			json.append(",\"Status\":{");
+			appendProperty(json, "Code", status.getCode());
+			json.append(',');
+			appendProperty(json, "Message", status.getMessage());
+			json.append(',');
+			appendProperty(json, "State", status.getState() == null ? null : status.getState().name());
+			json.append('}');
+		}
+		json.append("}}");
+	}
+
+	private static void appendProperty(final StringBuilder json, final String name, final String value) {
+		json.append('"').append(name).append("\":");
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		appendEscaped(json, value);
+		json.append('"');
+	}
+
+	static void appendEscaped(final StringBuilder json, final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					json.append("\\\"");
+					break;
+				case '\\':
+					json.append("\\\\");
+					break;
+				case '\n':
+					json.append("\\n");
+					break;
+				case '\r':
+					json.append("\\r");
+					break;
+				case '\t':
+					json.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						json.append(String.format("\\u%04x", (int) c));
+					} else {
+						json.append(c);
+					}
+			}
+		}
+	}
+
+	/**
+	 * @param resource
+	 * @param body
+	 * @return the response body.
+	 */
+	private String post(final String resource, final byte[] body) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(baseURL + resource).openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+		connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+		connection.setRequestProperty("Accept", "application/json");
+		try (final OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+
+		final int code = connection.getResponseCode();
+		final boolean success = code >= 200 && code < 300;
+		final String response;
+		try (final InputStream in = success ? connection.getInputStream() : connection.getErrorStream()) {
+			response = readFully(in);
+		}
+		if (!success) {
+			if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+				// the session may have been closed by the controller, open a new one next time.
+				synchronized (this) {
+					sessionId = null;
+				}
+			}
+			throw new IOException("The Data Exchange API answered " + code + " to " + resource + ": " + response);
+		}
+		return response;
+	}
+
+	private static String readFully(final InputStream in) throws IOException {
+		if (in == null) {
+			return "";
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
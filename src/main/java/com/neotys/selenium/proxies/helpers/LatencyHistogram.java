@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.Arrays;
+
+/** A compact histogram of non-negative values with a bounded relative error.
+ * <p>
+ * Values are put in logarithmic buckets: each power of two is split in {@link #SUB_BUCKETS} linear buckets, so a
+ * percentile is at most about 1/{@link #SUB_BUCKETS} away from the real value whatever the magnitude. Count, min, max
+ * and mean are exact. Buckets are only allocated up to the largest recorded value. Not thread safe.
+ */
+class LatencyHistogram {
+
+	/** Number of linear buckets per power of two. */
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Values are stored as longs in 1/1000 of the unit (microseconds for milliseconds). */
+	private static final double SCALE = 1000d;
+
+	private long[] counts = new long[2 * SUB_BUCKETS];
+
+	private long count = 0;
+	private double sum = 0;
+	private double min = Double.MAX_VALUE;
+	private double max = 0;
+
+	/** @param value a non-negative value; negative values are recorded as 0. */
+	void record(final double value) {
+		final double positiveValue = Math.max(0, value);
+		final int index = bucketIndex((long) (positiveValue * SCALE));
+		if (index >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + SUB_BUCKETS));
+		}
+		counts[index]++;
+		count++;
+		sum += positiveValue;
+		min = Math.min(min, positiveValue);
+		max = Math.max(max, positiveValue);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	double getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	double getMax() {
+		return max;
+	}
+
+	double getMean() {
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the value below which the given percentage of the recorded values fall.
+	 */
+	double getPercentile(final double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100d));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				// the middle of the bucket, kept within the exact bounds.
+				final double value = (bucketLowerBound(i) + bucketLowerBound(i + 1)) / 2d / SCALE;
+				return Math.min(max, Math.max(min, value));
+			}
+		}
+		return max;
+	}
+
+	/** Forget the recorded values but keep the buckets allocated so far. */
+	void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Double.MAX_VALUE;
+		max = 0;
+	}
+
+	static int bucketIndex(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		// how far the highest bit is above the sub-bucket bits.
+		final int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		final int subBucket = (int) (value >>> exponent) - SUB_BUCKETS;
+		return exponent * SUB_BUCKETS + SUB_BUCKETS + subBucket;
+	}
+
+	static long bucketLowerBound(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int exponent = index / SUB_BUCKETS - 1;
+		final int subBucket = index % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket) << exponent;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.openqa.selenium.WebDriver;
+
+/** A view of a list returned by Selenium whose elements are wrapped by {@link WrapperUtils} when they are read.
+ * <p>
+ * Scripts often only use a few elements of a large result, so elements are wrapped on first access and the wrapper
+ * is kept. The first change to the list copies all the wrapped elements to a plain list, which is used from then on.
+ */
+final class LazyWrappingList extends AbstractList<Object> implements RandomAccess {
+
+	private final WebDriver webDriver;
+	private final WrapperUtils wrapperUtils;
+
+	/** The list returned by Selenium, never changed. */
+	private final List<?> original;
+
+	/** The elements already wrapped, by index. A race only wraps an element twice. */
+	private final Object[] wrapped;
+
+	/** Null until the list is changed. */
+	private List<Object> copy;
+
+	LazyWrappingList(final WebDriver webDriver, final WrapperUtils wrapperUtils, final List<?> original) {
+		this.webDriver = webDriver;
+		this.wrapperUtils = wrapperUtils;
+		this.original = original;
+		this.wrapped = new Object[original.size()];
+	}
+
+	@Override
+	public Object get(final int index) {
+		if (copy != null) {
+			return copy.get(index);
+		}
+		Object element = wrapped[index];
+		if (element == null) {
+			element = wrapperUtils.wrapIfNecessary(webDriver, original.get(index));
+			wrapped[index] = element;
+		}
+		return element;
+	}
+
+	@Override
+	public int size() {
+		return copy != null ? copy.size() : wrapped.length;
+	}
+
+	@Override
+	public Object set(final int index, final Object element) {
+		return getCopy().set(index, element);
+	}
+
+	@Override
+	public void add(final int index, final Object element) {
+		getCopy().add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public Object remove(final int index) {
+		final Object removed = getCopy().remove(index);
+		modCount++;
+		return removed;
+	}
+
+	private List<Object> getCopy() {
+		if (copy == null) {
+			final List<Object> elements = new ArrayList<>(wrapped.length);
+			for (int i = 0; i < wrapped.length; i++) {
+				elements.add(get(i));
+			}
+			copy = elements;
+		}
+		return copy;
+	}
+}
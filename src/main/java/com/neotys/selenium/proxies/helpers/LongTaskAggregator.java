@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.TimerBuilder;
+
+/** Adds up the long tasks of the main thread during a transaction.
+ * <p>
+ * page-context.js observes the long tasks of the page and returns what was observed since the previous action. When
+ * the transaction ends the count, total blocking time and longest task are sent under the transaction timer.
+ */
+final class LongTaskAggregator {
+
+	static final String LONG_TASKS_NAME = "Long Tasks";
+	static final String COUNT_NAME = "Count";
+	static final String TOTAL_BLOCKING_TIME_NAME = "Total Blocking Time";
+	static final String LONGEST_TASK_NAME = "Longest Task";
+
+	/** The path of the transaction timer, null outside of a transaction. */
+	private List<String> timerPath = null;
+
+	/** Null until the browser reported its long tasks, possibly none, during the transaction. */
+	private LongTasks longTasks = null;
+
+	/** Start collecting for a transaction, forgetting what was not drained.
+	 * @param path the path of the transaction timer, under which the entries are sent.
+	 */
+	synchronized void start(final List<String> path) {
+		this.longTasks = null;
+		this.timerPath = path;
+	}
+
+	/** Stop collecting until the next transaction. */
+	synchronized void stop() {
+		this.longTasks = null;
+		this.timerPath = null;
+	}
+
+	/** Add the long tasks observed since the previous action. Ignored outside of a transaction.
+	 * @param observed
+	 */
+	synchronized void add(final LongTasks observed) {
+		if (timerPath != null) {
+			longTasks = longTasks == null ? observed : longTasks.plus(observed);
+		}
+	}
+
+	/** Create the entries of the current transaction and start over.
+	 * @param timestamp the timestamp of the entries, the start of the transaction.
+	 * @return the entries, empty outside of a transaction or if the browser does not report long tasks.
+	 */
+	synchronized List<Entry> drain(final long timestamp) {
+		final LongTasks drained = longTasks;
+		longTasks = null;
+		if (timerPath == null || drained == null) {
+			return Collections.emptyList();
+		}
+		final List<Entry> entries = new ArrayList<>(3);
+		entries.add(newEntry(timestamp, COUNT_NAME, drained.getCount(), "count"));
+		entries.add(newEntry(timestamp, TOTAL_BLOCKING_TIME_NAME, drained.getBlockingTime(), TimerBuilder.DEFAULT_UNIT));
+		entries.add(newEntry(timestamp, LONGEST_TASK_NAME, drained.getLongest(), TimerBuilder.DEFAULT_UNIT));
+		return entries;
+	}
+
+	private Entry newEntry(final long timestamp, final String name, final double value, final String unit) {
+		final List<String> path = new ArrayList<>(timerPath.size() + 2);
+		path.addAll(timerPath);
+		path.add(LONG_TASKS_NAME);
+		path.add(name);
+		final EntryBuilder entryBuilder = new EntryBuilder(path, timestamp);
+		entryBuilder.value(value);
+		entryBuilder.unit(unit);
+		return entryBuilder.build();
+	}
+
+	/** The long tasks observed between two actions. */
+	static final class LongTasks {
+
+		private final long count;
+		private final double blockingTime;
+		private final double longest;
+
+		/**
+		 * @param count number of tasks longer than 50 ms.
+		 * @param blockingTime the sum of the time above 50 ms of each task, in milliseconds.
+		 * @param longest the duration of the longest task in milliseconds.
+		 */
+		LongTasks(final long count, final double blockingTime, final double longest) {
+			this.count = count;
+			this.blockingTime = blockingTime;
+			this.longest = longest;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		double getBlockingTime() {
+			return blockingTime;
+		}
+
+		double getLongest() {
+			return longest;
+		}
+
+		LongTasks plus(final LongTasks other) {
+			return new LongTasks(count + other.count, blockingTime + other.blockingTime, Math.max(longest, other.longest));
+		}
+	}
+}
@@ -29,8 +29,9 @@ package com.neotys.selenium.proxies.helpers;
 
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by anouvel on 08/11/2016.
@@ -76,21 +77,35 @@ public class ModeHelper {
 	 */
 	static final String COMMAND_LINE_ARGS[] = StringUtils.trimToEmpty(System.getProperty("sun.java.command")).split("\\s");
 
+	/**
+	 * The -Dkey=value program arguments, parsed once because settings are read on every intercepted call.
+	 */
+	private static final Map<String, String> COMMAND_LINE_SETTINGS = parseCommandLineSettings(COMMAND_LINE_ARGS);
+
 	public static String getSetting(final String key, final String defaultValue) {
 		// look for the environment variable
-		if (System.getProperty(key) != null) {
-			return System.getProperty(key);
+		final String value = System.getProperty(key);
+		if (value != null) {
+			return value;
 		}
 
 		// look for a program argument
-		final Pattern pattern = Pattern.compile("-D" + Pattern.quote(key) + "=" + "(.+)");
-		for (final String arg : COMMAND_LINE_ARGS) {
-			final Matcher matcher = pattern.matcher(arg);
-			if (matcher.matches()) {
-				return matcher.group(1);
+		final String argument = COMMAND_LINE_SETTINGS.get(key);
+		return argument != null ? argument : defaultValue;
+	}
+
+	/**
+	 * @param args
+	 * @return the value of each -Dkey=value argument by key, the first one wins. Arguments without a value are ignored.
+	 */
+	static Map<String, String> parseCommandLineSettings(final String[] args) {
+		final Map<String, String> settings = new HashMap<>();
+		for (final String arg : args) {
+			final int equals = arg.indexOf('=');
+			if (arg.startsWith("-D") && equals > 2 && equals < arg.length() - 1) {
+				settings.putIfAbsent(arg.substring(2, equals), arg.substring(equals + 1));
 			}
 		}
-
-		return defaultValue;
+		return Collections.unmodifiableMap(settings);
 	}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.TimerBuilder;
+
+/** Measures a duration with the monotonic {@link System#nanoTime()} clock, which has sub-millisecond resolution and
+ * is not moved by clock adjustments. The wall clock is only read once, for the timestamp of the entry.
+ */
+final class MonotonicTimer {
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/** The path of the entry created by {@link #stop()}, null if the timer is only used for its measures. */
+	private final List<String> path;
+
+	/** Wall-clock start time in milliseconds since the epoch. */
+	private final long startTimestamp;
+
+	private final long startNanos;
+
+	private MonotonicTimer(final List<String> path, final long startTimestamp, final long startNanos) {
+		this.path = path;
+		this.startTimestamp = startTimestamp;
+		this.startNanos = startNanos;
+	}
+
+	static MonotonicTimer start() {
+		return new MonotonicTimer(null, System.currentTimeMillis(), System.nanoTime());
+	}
+
+	/** A timer for a measure started without one, so that nothing is allocated when the measure is not sent.
+	 * @param startTimestamp the wall-clock start time, read with {@link System#currentTimeMillis()}.
+	 * @param startNanos the start, read with {@link System#nanoTime()}.
+	 * @return
+	 */
+	static MonotonicTimer startedAt(final long startTimestamp, final long startNanos) {
+		return new MonotonicTimer(null, startTimestamp, startNanos);
+	}
+
+	/**
+	 * @param path the path of the entry created by {@link #stop()}.
+	 * @return
+	 */
+	static MonotonicTimer start(final List<String> path) {
+		return new MonotonicTimer(path, System.currentTimeMillis(), System.nanoTime());
+	}
+
+	/** @return the wall-clock start time in milliseconds since the epoch, to use as the timestamp of an entry. */
+	long getStartTimestamp() {
+		return startTimestamp;
+	}
+
+	/** @return the time elapsed since the start in milliseconds, with sub-millisecond precision. Never negative. */
+	double getElapsedMillis() {
+		return elapsedMillis(startNanos);
+	}
+
+	/**
+	 * @param startNanos the start, read with {@link System#nanoTime()}.
+	 * @return the time elapsed since the start in milliseconds, with sub-millisecond precision. Never negative.
+	 */
+	static double elapsedMillis(final long startNanos) {
+		return Math.max(0, System.nanoTime() - startNanos) / NANOS_PER_MILLI;
+	}
+
+	/** @return an entry with the path given at start, the start timestamp and the elapsed time. */
+	Entry stop() {
+		final EntryBuilder entryBuilder = new EntryBuilder(path, startTimestamp);
+		entryBuilder.value(getElapsedMillis());
+		entryBuilder.unit(TimerBuilder.DEFAULT_UNIT);
+		return entryBuilder.build();
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.google.common.io.Resources;
+import com.neotys.selenium.proxies.helpers.LongTaskAggregator.LongTasks;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.Batch;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.SlowResource;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.TypeTotals;
+
+/** The URL, title and navigation timing of the current page, read after a timed action.
+ * <p>
+ * With a {@link JavascriptExecutor} everything is read by one script (page-context.js) instead of one WebDriver call
+ * per value. Other drivers fall back to {@link WebDriver#getCurrentUrl()} and {@link WebDriver#getTitle()}.
+ */
+final class PageContext {
+
+	private static final String SCRIPT_RESOURCE = "page-context.js";
+
+	private static final String LONG_TASK_OBSERVER_RESOURCE = "long-task-observer.js";
+
+	/** Installs the long task observer, if needed. Loaded once. */
+	private static final String LONG_TASK_OBSERVER_SCRIPT = loadScript(LONG_TASK_OBSERVER_RESOURCE);
+
+	private static final String SOFT_NAVIGATION_WAIT_RESOURCE = "soft-navigation-wait.js";
+
+	/** Waits for a pending soft navigation. Loaded once. */
+	private static final String SOFT_NAVIGATION_WAIT_SCRIPT = loadScript(SOFT_NAVIGATION_WAIT_RESOURCE);
+
+	/** Loaded once. */
+	private static final String SCRIPT = "function installLongTaskObserver() {\n" + LONG_TASK_OBSERVER_SCRIPT + "}\n"
+			+ loadScript(SCRIPT_RESOURCE);
+
+	/** Script option: if true then the navigation timing, the paint timing and the web vitals are read. */
+	static final String OPTION_NAVIGATION_TIMING = "navigationTiming";
+
+	/** Script option: how many of the slowest resources to return. Without it the resource timing buffer is left alone. */
+	static final String OPTION_SLOWEST_RESOURCES = "slowestResources";
+
+	/** Script option: if true then the long tasks of the main thread are observed. */
+	static final String OPTION_LONG_TASKS = "longTasks";
+
+	/** Script option: if true then the JS heap and the number of DOM nodes are sampled. */
+	static final String OPTION_SAMPLES = "samples";
+
+	/** Script option: if true then the soft navigations of single-page applications are detected. */
+	static final String OPTION_SOFT_NAVIGATION = "softNavigation";
+
+	private final String url;
+	private final String title;
+
+	/** Key: the name of a field of window.performance.timing. Empty if navigation timing is not available. */
+	private final Map<String, Long> navigationTiming;
+
+	/** Key: a metric computed by the script such as dns or firstContentfulPaint. Only the available ones are set. */
+	private final Map<String, Double> metrics;
+
+	/** The resources loaded since the previous action. Empty unless resource timing was requested. */
+	private final Batch resourceTimings;
+
+	/** Identifies the navigation: performance.timeOrigin, or navigationStart for older browsers. Null if unknown. */
+	private final Double timeOrigin;
+
+	/** The duration of the soft navigation that settled since the previous call, null if there is none. */
+	private final Double softNavigation;
+
+	/** True if a soft navigation started and has not settled yet. */
+	private final boolean softNavigationPending;
+
+	/** The long tasks observed since the previous call, null if they were not requested or are not supported. */
+	private final LongTasks longTasks;
+
+	/** Key: a value sampled at each call, such as jsHeapUsed or domNodes. Only the available ones are set. */
+	private final Map<String, Double> samples;
+
+	/** The time of the browser clock read by the script, null if unknown. */
+	private final Double browserTime;
+
+	PageContext(final String url, final String title, final Double timeOrigin, final Map<String, Long> navigationTiming,
+			final Map<String, Double> metrics, final Batch resourceTimings, final Double softNavigation,
+			final boolean softNavigationPending, final LongTasks longTasks, final Map<String, Double> samples, final Double browserTime) {
+		this.url = url;
+		this.title = title;
+		this.timeOrigin = timeOrigin;
+		this.softNavigation = softNavigation;
+		this.softNavigationPending = softNavigationPending;
+		this.longTasks = longTasks;
+		this.samples = samples;
+		this.browserTime = browserTime;
+		this.navigationTiming = navigationTiming;
+		this.metrics = metrics;
+		this.resourceTimings = resourceTimings;
+	}
+
+	String getURL() {
+		return url;
+	}
+
+	String getTitle() {
+		return title;
+	}
+
+	/** @return the time origin of the navigation, or null if unknown. */
+	Double getTimeOrigin() {
+		return timeOrigin;
+	}
+
+	/**
+	 * @param name a field of window.performance.timing, such as fetchStart.
+	 * @return the value, or null if it is not available.
+	 */
+	Long getNavigationTiming(final String name) {
+		return navigationTiming.get(name);
+	}
+
+	boolean hasNavigationTiming() {
+		return !navigationTiming.isEmpty();
+	}
+
+	/**
+	 * @param name a metric computed by the script, such as largestContentfulPaint.
+	 * @return the value, or null if the browser does not provide it.
+	 */
+	Double getMetric(final String name) {
+		return metrics.get(name);
+	}
+
+	boolean hasMetrics() {
+		return !metrics.isEmpty();
+	}
+
+	Batch getResourceTimings() {
+		return resourceTimings;
+	}
+
+	/** @return the duration in milliseconds of the soft navigation that settled since the previous call, or null. */
+	Double getSoftNavigation() {
+		return softNavigation;
+	}
+
+	/** @return true if a soft navigation started and has not settled yet, see {@link #waitForSoftNavigation}. */
+	boolean isSoftNavigationPending() {
+		return softNavigationPending;
+	}
+
+	/**
+	 * @param settled the duration of the soft navigation that was pending.
+	 * @return the same page context with the soft navigation settled.
+	 */
+	PageContext withSoftNavigation(final Double settled) {
+		return new PageContext(url, title, timeOrigin, navigationTiming, metrics, resourceTimings, settled, false, longTasks,
+				samples, browserTime);
+	}
+
+	/** @return the long tasks observed since the previous call, or null. */
+	LongTasks getLongTasks() {
+		return longTasks;
+	}
+
+	/**
+	 * @param name a value sampled by the script, such as domNodes.
+	 * @return the value, or null if it was not requested or the browser does not provide it.
+	 */
+	Double getSample(final String name) {
+		return samples.get(name);
+	}
+
+	boolean hasSamples() {
+		return !samples.isEmpty();
+	}
+
+	/** @return the time of the browser clock in milliseconds since the epoch when the script ran, or null if unknown. */
+	Double getBrowserTime() {
+		return browserTime;
+	}
+
+	/** Read the page context with a single script.
+	 * @param javascriptExecutor
+	 * @return the page context.
+	 * @throws RuntimeException if the script cannot be run.
+	 */
+	static PageContext fromScript(final JavascriptExecutor javascriptExecutor) {
+		return fromScript(javascriptExecutor, Collections.<String, Object>emptyMap());
+	}
+
+	/** Read the page context with a single script, with the optional collections turned on by the options.
+	 * @param javascriptExecutor
+	 * @param options key -> an OPTION_ constant.
+	 * @return the page context.
+	 * @throws RuntimeException if the script cannot be run.
+	 */
+	static PageContext fromScript(final JavascriptExecutor javascriptExecutor, final Map<String, Object> options) {
+		final Object result = options.isEmpty() ? javascriptExecutor.executeScript(SCRIPT) : javascriptExecutor.executeScript(SCRIPT, options);
+		if (!(result instanceof Map)) {
+			throw new IllegalStateException("Unexpected page context: " + result);
+		}
+		final Map<?, ?> values = (Map<?, ?>) result;
+
+		final Map<String, Long> navigationTiming = new LinkedHashMap<>();
+		final Object timing = values.get("timing");
+		if (timing instanceof Map) {
+			for (final Map.Entry<?, ?> entry: ((Map<?, ?>) timing).entrySet()) {
+				if (entry.getValue() instanceof Number) {
+					navigationTiming.put(String.valueOf(entry.getKey()), ((Number) entry.getValue()).longValue());
+				}
+			}
+		}
+		return new PageContext(toString(values.get("url")), toString(values.get("title")), toDouble(values.get("timeOrigin")),
+				navigationTiming, toDoubles(values.get("metrics")), toResourceTimings(values.get("resources")),
+				toDouble(values.get("softNavigation")), Boolean.TRUE.equals(values.get("softNavigationPending")),
+				toLongTasks(values.get("longTasks")), toDoubles(values.get("samples")), toDouble(values.get("now")));
+	}
+
+	/** Wait in the browser for the pending soft navigation to settle.
+	 * @param javascriptExecutor
+	 * @param timeoutMillis how long to wait. The script timeout of the driver must be longer.
+	 * @return the duration of the soft navigation, or null if it did not settle in time. It is then returned later by
+	 * {@link #fromScript(JavascriptExecutor, Map)}.
+	 * @throws RuntimeException if the script cannot be run, for example because the script timeout of the driver is
+	 * shorter.
+	 */
+	static Double waitForSoftNavigation(final JavascriptExecutor javascriptExecutor, final long timeoutMillis) {
+		return toDouble(javascriptExecutor.executeAsyncScript(SOFT_NAVIGATION_WAIT_SCRIPT, timeoutMillis));
+	}
+
+	private static Double toDouble(final Object value) {
+		return value instanceof Number ? Double.valueOf(((Number) value).doubleValue()) : null;
+	}
+
+	/**
+	 * @param object an object returned by the script.
+	 * @return the numbers of the object by name, empty if it is not an object.
+	 */
+	private static Map<String, Double> toDoubles(final Object object) {
+		if (!(object instanceof Map)) {
+			return Collections.emptyMap();
+		}
+		final Map<String, Double> doubles = new LinkedHashMap<>();
+		for (final Map.Entry<?, ?> entry: ((Map<?, ?>) object).entrySet()) {
+			if (entry.getValue() instanceof Number) {
+				doubles.put(String.valueOf(entry.getKey()), ((Number) entry.getValue()).doubleValue());
+			}
+		}
+		return doubles;
+	}
+
+	private static LongTasks toLongTasks(final Object longTasks) {
+		if (!(longTasks instanceof Map)) {
+			return null;
+		}
+		final Map<?, ?> values = (Map<?, ?>) longTasks;
+		return new LongTasks(toNumber(values.get("count")).longValue(), toNumber(values.get("blockingTime")).doubleValue(),
+				toNumber(values.get("longest")).doubleValue());
+	}
+
+	private static Batch toResourceTimings(final Object resources) {
+		if (!(resources instanceof Map)) {
+			return Batch.EMPTY;
+		}
+		final Map<String, TypeTotals> totalsByType = new LinkedHashMap<>();
+		final Object types = ((Map<?, ?>) resources).get("types");
+		if (types instanceof Map) {
+			for (final Map.Entry<?, ?> entry: ((Map<?, ?>) types).entrySet()) {
+				if (entry.getValue() instanceof Map) {
+					final Map<?, ?> totals = (Map<?, ?>) entry.getValue();
+					totalsByType.put(String.valueOf(entry.getKey()), new TypeTotals(toNumber(totals.get("count")).longValue(),
+							toNumber(totals.get("transferSize")).longValue(), toNumber(totals.get("blockedTime")).doubleValue()));
+				}
+			}
+		}
+		final List<SlowResource> slowest = new ArrayList<>();
+		final Object slowestValues = ((Map<?, ?>) resources).get("slowest");
+		if (slowestValues instanceof List) {
+			for (final Object value: (List<?>) slowestValues) {
+				if (value instanceof Map) {
+					final Map<?, ?> resource = (Map<?, ?>) value;
+					slowest.add(new SlowResource(toString(resource.get("url")), toNumber(resource.get("duration")).doubleValue()));
+				}
+			}
+		}
+		return new Batch(totalsByType, slowest);
+	}
+
+	private static Number toNumber(final Object value) {
+		return value instanceof Number ? (Number) value : Integer.valueOf(0);
+	}
+
+	/** Read the URL and title with one WebDriver call each, ignoring errors.
+	 * @param webDriver
+	 * @return the page context, without navigation timing.
+	 */
+	static PageContext fromDriver(final WebDriver webDriver) {
+		return new PageContext(WrapperUtils.getURL(webDriver), WrapperUtils.getTitle(webDriver), null, Collections.<String, Long>emptyMap(),
+				Collections.<String, Double>emptyMap(), Batch.EMPTY, null, false, null, Collections.<String, Double>emptyMap(),
+				null);
+	}
+
+	private static String toString(final Object value) {
+		return value == null ? "" : value.toString();
+	}
+
+	/** @return the script to add to every new document so that the long tasks of the page load are observed. */
+	static String getLongTaskObserverScript() {
+		return LONG_TASK_OBSERVER_SCRIPT;
+	}
+
+	private static String loadScript(final String resource) {
+		try {
+			return Resources.toString(Resources.getResource(PageContext.class, resource), StandardCharsets.UTF_8);
+		} catch (final IOException e) {
+			throw new IllegalStateException("Cannot read " + resource, e);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/** A bounded least-recently-used cache of the path elements built from a URL or a page title.
+ * The same pages are visited over and over, so the cleaning and splitting are usually done once per page.
+ */
+class PathCache {
+
+	/** Report the hit rate in debug mode every time this many lookups are done. */
+	private static final long REPORT_INTERVAL = 1000;
+
+	/** For messages. */
+	private final String name;
+
+	/** Key: the raw URL or title. Value: the immutable path elements. */
+	private final Map<String, List<String>> cache;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * @param name for messages.
+	 * @param maxSize
+	 */
+	PathCache(final String name, final int maxSize) {
+		this.name = name;
+		this.cache = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, List<String>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * @param raw the URL or title.
+	 * @param builder builds the path elements when they are not cached. The result must not be modified afterwards.
+	 * @return the path elements.
+	 */
+	List<String> get(final String raw, final Function<String, List<String>> builder) {
+		synchronized (this) {
+			final List<String> cached = cache.get(raw);
+			if (cached != null) {
+				hits++;
+				report();
+				return cached;
+			}
+			misses++;
+			report();
+		}
+		// built outside of the lock, two threads may build the same path which is harmless.
+		final List<String> built = builder.apply(raw);
+		synchronized (this) {
+			cache.put(raw, built);
+		}
+		return built;
+	}
+
+	/** @return the share of lookups that were found in the cache, between 0 and 1. */
+	synchronized double getHitRate() {
+		final long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	private void report() {
+		if ((hits + misses) % REPORT_INTERVAL == 0) {
+			SeleniumProxyConfig.debugMessage(String.format("%s path cache: %d lookups, %.1f%% hits, %d cached.",
+					name, hits + misses, getHitRate() * 100, cache.size()));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Limits the number of distinct paths sent, since the controller slows down as the number of series grows.
+ * Once the limit is reached, entries with a new path are sent under {@value #OTHER_NAME} instead.
+ * <p>
+ * Known paths are kept in a set bounded by the limit. Under concurrent use the limit may be exceeded by a few paths.
+ */
+class PathCardinalityLimiter {
+
+	static final String OTHER_NAME = "Other";
+
+	private final int maxPaths;
+
+	private final Set<List<String>> knownPaths = ConcurrentHashMap.newKeySet();
+
+	/** Number of entries sent under {@value #OTHER_NAME}. */
+	private final AtomicLong folded = new AtomicLong();
+
+	/** @param maxPaths the number of distinct paths after which new paths are folded. */
+	PathCardinalityLimiter(final int maxPaths) {
+		this.maxPaths = maxPaths;
+	}
+
+	/**
+	 * @param path
+	 * @param prefixSize the number of leading path elements that are always kept, such as the script name.
+	 * @return the path, or the prefix followed by {@value #OTHER_NAME} if the path is new and the limit is reached.
+	 */
+	List<String> limit(final List<String> path, final int prefixSize) {
+		if (knownPaths.contains(path)) {
+			return path;
+		}
+		if (knownPaths.size() < maxPaths) {
+			knownPaths.add(new ArrayList<>(path));
+			return path;
+		}
+		if (folded.incrementAndGet() == 1) {
+			SeleniumProxyConfig.errorMessage("More than " + maxPaths + " distinct paths were sent, new paths are sent as "
+					+ OTHER_NAME + ". Increase " + SeleniumProxyConfig.OPT_PATH_MAX_COUNT + " or clean URLs with "
+					+ SeleniumProxyConfig.OPT_URL_TEMPLATES_ENABLED + ".");
+		}
+		final int keptSize = Math.min(prefixSize, path.size());
+		final List<String> otherPath = new ArrayList<>(keptSize + 1);
+		otherPath.addAll(path.subList(0, keptSize));
+		otherPath.add(OTHER_NAME);
+		return otherPath;
+	}
+
+	/** @return the number of entries sent under {@value #OTHER_NAME}. */
+	long getFoldedCount() {
+		return folded.get();
+	}
+}
@@ -27,6 +27,7 @@
  */
 package com.neotys.selenium.proxies.helpers;
 
+import com.google.common.base.Optional;
 import com.neotys.selenium.proxies.CustomProxyConfig;
 import com.neotys.selenium.proxies.TransactionModifier;
 import org.openqa.selenium.JavascriptExecutor;
@@ -35,8 +36,6 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.net.URI;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -53,20 +52,29 @@ public class ProxySendHelper {
     /** Wrap returned types with our proxies */
     private final WrapperUtils wrapperUtils;
     
-    /** Whether we use navigation timing or not. */
-    private boolean navigationTimingActive = SeleniumProxyConfig.isNavigationTimingEnabled();
-    
-    /** Helps us decide whether to send navigation timing values or not. */
-    private static String navigationTimingPreviousDomain = "";
-    
-    /** Helps us decide whether to send navigation timing values or not. */
-    private static Map<String, Long> navigationTimingPreviousAdvancedValues = Collections.emptyMap();
-    
-    /** Parses and sends results to perfecto. */
+    /** The label of the size of the page in bytes, as transferred over the network. */
+    static final String TRANSFER_SIZE_LABEL = "Transfer Size";
+
+    /** The label of the cumulative layout shift score, multiplied by {@link #CUMULATIVE_LAYOUT_SHIFT_SCALE}. */
+    static final String CUMULATIVE_LAYOUT_SHIFT_LABEL = "Cumulative Layout Shift";
+
+    /** The label of the time a route change of a single-page application took to settle. */
+    static final String SOFT_NAVIGATION_LABEL = "Soft Navigation";
+
+    /** The label of the memory used by the JavaScript heap of the page, in bytes. */
+    static final String JS_HEAP_USED_LABEL = "JS Heap Used";
+
+    /** The label of the number of elements of the page. */
+    static final String DOM_NODES_LABEL = "DOM Nodes";
+
+    /** Layout shift scores are small fractions and advanced values are whole numbers. */
+    private static final int CUMULATIVE_LAYOUT_SHIFT_SCALE = 1000;
+
+    /** Parses and sends results to perfecto. Created on first use. */
     private PerfectoResultsHelper perfectoResultsHelper = null;
     
     /** When the script begins. */
-    private long actualScriptStartTime;
+    private final long actualScriptStartTime;
 
     /**
      * @param proxyConfig
@@ -78,20 +86,23 @@ public class ProxySendHelper {
     }
 
     /**
-     * @param methodsSetLastAction
+     * @param flags of the method in its {@link InstrumentationPolicy}
      * @param method
      * @param args
      */
-    private void handleSetLastAction(final Collection<String> methodsSetLastAction, final Method method, final Object[] args) {
-        if (methodsSetLastAction.contains(method.getName())) {
+    private void handleSetLastAction(final int flags, final Method method, final Object[] args) {
+        if ((flags & InstrumentationPolicy.SET_LAST_ACTION) != 0) {
             proxyConfig.setLastAction(method.getName() + " " + args[0]);
         }
     }
 
+    /** @return what wraps the values returned to the script, shared by all the proxies of the driver. */
+    public WrapperUtils getWrapperUtils() {
+        return wrapperUtils;
+    }
+
     /**
-     * @param methodsAlwaysSend a list of methods for which to send data
-     * @param methodsSendOnExceptionOnly a list of methods for which to send data
-     * @param methodsSetLastAction
+     * @param policy which calls of the proxied type send data
      * @param webDriver
      * @param original invoke the method on this object
      * @param method the method to invoke
@@ -100,32 +111,55 @@ public class ProxySendHelper {
      * @throws IllegalAccessException
      * @throws InvocationTargetException
      */
-    public <T> T sendAndReturn(final Collection<String> methodsAlwaysSend, final Collection<String> methodsSendOnExceptionOnly,
-            final Collection<String> methodsSetLastAction,
+    public <T> T sendAndReturn(final InstrumentationPolicy policy,
             final WebDriver webDriver, final Object original, final Method method, final Object[] args)
             throws IllegalAccessException, InvocationTargetException {
+        return sendAndReturn(policy, webDriver, original, ProxiedMethod.reflective(method), args);
+    }
+
+    /**
+     * @param policy which calls of the proxied type send data
+     * @param webDriver
+     * @param original invoke the method on this object
+     * @param proxiedMethod the method to invoke, resolved once
+     * @param args the args for the method
+     * @return
+     * @throws IllegalAccessException
+     * @throws InvocationTargetException
+     */
+    public <T> T sendAndReturn(final InstrumentationPolicy policy,
+            final WebDriver webDriver, final Object original, final ProxiedMethod proxiedMethod, final Object[] args)
+            throws IllegalAccessException, InvocationTargetException {
+        final Method method = proxiedMethod.getMethod();
 
     	handlePerfectoData(webDriver, method.getName(), "quit");
 
     	try {
             // if we're calling a method on our wrapper then handle it.
             if (isInvokedInSeleniumProxyConfig(method)) {
+                if (method.getDeclaringClass().isAssignableFrom(TransactionModifier.class)) {
+                    readTransactionTail(webDriver);
+                }
                 return (T) method.invoke(proxyConfig, args);
             }
             
+            final int flags = policy.getFlags(method);
+
             // set the last action if necessary
-            handleSetLastAction(methodsSetLastAction, method, args);
-    
-            // get the current url and title
-            Object returnValue = null;
+            handleSetLastAction(flags, method, args);
     
-            // always start the timer and create an entry, even if we don't use it.
-            final EntryHandler eh = EntryHandler.start(proxyConfig);
+            // always read the start. the timer and the entry are only created if it is sent.
+            final long startTimestamp = System.currentTimeMillis();
+            final long startNanos = System.nanoTime();
 
-            returnValue = doInvokeAndWrap(methodsAlwaysSend, methodsSendOnExceptionOnly, webDriver, original, method, args, eh);
+            final Object returnValue = doInvokeAndWrap(flags, webDriver, original, proxiedMethod, args, startTimestamp, startNanos);
+            // stop before reading the page context, which is not part of the action.
+            final double duration = MonotonicTimer.elapsedMillis(startNanos);
 
-            if (methodsAlwaysSend.contains(method.getName())) {
-                eh.sendEntry(WrapperUtils.getURL(webDriver), WrapperUtils.getTitle(webDriver), method.getName(), getAdvancedValues(webDriver));
+            if ((flags & InstrumentationPolicy.ALWAYS_SEND) != 0) {
+                final PageContext pageContext = getPageContext(webDriver);
+                newEntryHandler(startTimestamp, startNanos, duration, pageContext).sendEntry(pageContext.getURL(), pageContext.getTitle(),
+                        method.getName(), getAdvancedValues(pageContext));
 
             	handlePerfectoData(webDriver, method.getName(), "close");
                 return (T) wrapperUtils.wrapIfNecessary(webDriver, returnValue);
@@ -137,15 +171,20 @@ public class ProxySendHelper {
         	proxyConfig.debug("Error from Selenium while calling method: " + method + " on class: " + original.getClass() + 
         			" (" + e.getMessage() + ")");
         	throw e;
+        } finally {
+            if ("quit".equals(method.getName())) {
+                // make sure entries queued in asynchronous mode are not lost.
+                SeleniumProxyConfig.flushEntries();
+            }
         }
     }
 
-    private Object doInvokeAndWrap(final Collection<String> methodsAlwaysSend,
-                                   final Collection<String> methodsSendOnExceptionOnly,
+    private Object doInvokeAndWrap(final int flags,
                                    final WebDriver webDriver, Object original,
-                                   final Method method,
+                                   final ProxiedMethod method,
                                    final Object[] args,
-                                   final EntryHandler eh)
+                                   final long startTimestamp,
+                                   final long startNanos)
             throws IllegalAccessException, InvocationTargetException {
         Object returnValue;
         try {
@@ -153,13 +192,16 @@ public class ProxySendHelper {
             returnValue = wrapperUtils.wrapIfNecessary(webDriver, methodReturnValue);
 
         } catch (final Exception caughtException) {
+            final double duration = MonotonicTimer.elapsedMillis(startNanos);
             final Throwable cause = caughtException.getCause();
 
             if (cause instanceof RuntimeException) {
                 final RuntimeException rte = (RuntimeException) cause;
-                // if either list contains the method then we send the value.
-                if (methodsSendOnExceptionOnly.contains(method.getName()) || methodsAlwaysSend.contains(method.getName())) {
-                    eh.sendEntryThrow(WrapperUtils.getURL(webDriver), WrapperUtils.getTitle(webDriver), rte, method.getName(), getAdvancedValues(webDriver));
+                // methods that always send also send when they throw.
+                if ((flags & (InstrumentationPolicy.SEND_ON_EXCEPTION | InstrumentationPolicy.ALWAYS_SEND)) != 0) {
+                    final PageContext pageContext = getPageContext(webDriver);
+                    newEntryHandler(startTimestamp, startNanos, duration, pageContext).sendEntryThrow(pageContext.getURL(), pageContext.getTitle(),
+                            rte, method.getName(), getAdvancedValues(pageContext));
                 }
             }
 
@@ -175,95 +217,236 @@ public class ProxySendHelper {
 
     private void handlePerfectoData(final WebDriver webDriver, final String actualMethodName, final String methodToMatch) {
         if (methodToMatch.equals(actualMethodName) && webDriver != null && proxyConfig.isUsingPerfecto(webDriver)) {
-            if (perfectoResultsHelper == null) {
-                this.perfectoResultsHelper = new PerfectoResultsHelper((RemoteWebDriver) webDriver, proxyConfig, actualScriptStartTime);
-            }
-            perfectoResultsHelper.sendResults();
+            getPerfectoResultsHelper((RemoteWebDriver) webDriver).sendResults();
         }
     }
 	
+    private synchronized PerfectoResultsHelper getPerfectoResultsHelper(final RemoteWebDriver webDriver) {
+        if (perfectoResultsHelper == null) {
+            perfectoResultsHelper = new PerfectoResultsHelper(webDriver, proxyConfig, actualScriptStartTime);
+        }
+        return perfectoResultsHelper;
+    }
+
+    /**
+     * @param startTimestamp the wall-clock time when the action started.
+     * @param startNanos the {@link System#nanoTime()} when the action started.
+     * @param duration of the action in milliseconds, measured when the action ended.
+     * @param pageContext
+     * @return a handler whose navigation values are timestamped with the start of the navigation, on the JVM clock.
+     */
+    private EntryHandler newEntryHandler(final long startTimestamp, final long startNanos, final double duration,
+            final PageContext pageContext) {
+        final EntryHandler entryHandler = EntryHandler.start(proxyConfig, MonotonicTimer.startedAt(startTimestamp, startNanos));
+        entryHandler.setDuration(duration);
+        final ClockOffsetEstimator clockOffset = proxyConfig.getDriverSession().getClockOffset();
+        if (pageContext.getTimeOrigin() != null && clockOffset.isEstimated()) {
+            entryHandler.setNavigationStart(clockOffset.toJVMTime(pageContext.getTimeOrigin()));
+        }
+        return entryHandler;
+    }
+
+    /** Read the URL, title and navigation timing of the current page, with a single script if possible.
+     * @param webDriver
+     * @return
+     */
+    PageContext getPageContext(final WebDriver webDriver) {
+        final DriverSession driverSession = proxyConfig.getDriverSession();
+        if (driverSession.isPageContextScriptActive() && webDriver instanceof JavascriptExecutor) {
+            try {
+                final long requestTime = System.currentTimeMillis();
+                final PageContext pageContext = PageContext.fromScript((JavascriptExecutor) webDriver,
+                        proxyConfig.getPageContextScriptOptions(driverSession.isNavigationTimingActive()));
+                final long responseTime = System.currentTimeMillis();
+                driverSession.pageContextScriptSucceeded();
+                if (pageContext.getBrowserTime() != null) {
+                    driverSession.getClockOffset().record(requestTime, responseTime, pageContext.getBrowserTime());
+                }
+                addToTransaction(pageContext);
+                if (pageContext.isSoftNavigationPending()) {
+                    return waitForSoftNavigation((JavascriptExecutor) webDriver, pageContext);
+                }
+                return pageContext;
+            } catch (final Exception e) {
+                SeleniumProxyConfig.debugMessage("Exception reading the page context with " + webDriver.getClass().getName() + ": " + e.getMessage());
+                driverSession.pageContextScriptFailed();
+            }
+        }
+        return PageContext.fromDriver(webDriver);
+    }
+
+    /** Wait for the soft navigation started by the action to settle, so that it is sent with that action.
+     * @param javascriptExecutor
+     * @param pageContext read right after the action, with a pending soft navigation.
+     * @return the page context with the soft navigation, or unchanged if it did not settle in time: it is then sent with
+     * the first action after it settled.
+     */
+    private PageContext waitForSoftNavigation(final JavascriptExecutor javascriptExecutor, final PageContext pageContext) {
+        final DriverSession driverSession = proxyConfig.getDriverSession();
+        final long timeout = proxyConfig.getSoftNavigationTimeout();
+        if (timeout <= 0 || !driverSession.isSoftNavigationWaitActive()) {
+            return pageContext;
+        }
+        try {
+            final Double settled = PageContext.waitForSoftNavigation(javascriptExecutor, timeout);
+            return settled == null ? pageContext : pageContext.withSoftNavigation(settled);
+        } catch (final Exception e) {
+            SeleniumProxyConfig.debugMessage("Cannot wait for soft navigations, they are sent with the next action: " + e.getMessage());
+            driverSession.disableSoftNavigationWait();
+            return pageContext;
+        }
+    }
+
+    /** Add the long task observer to every new document where the driver allows it, so that the tasks of the page load
+     * are counted: Chromium drivers of Selenium 4 and later, through the DevTools protocol. With the other drivers the
+     * observer is installed by the first page context read of each page.
+     * @param webDriver the driver, not a proxy.
+     */
+    public void installDocumentStartScripts(final WebDriver webDriver) {
+        if (!proxyConfig.getLongTaskAggregator().isPresent()) {
+            return;
+        }
+        final Method executeCdpCommand;
+        try {
+            executeCdpCommand = webDriver.getClass().getMethod("executeCdpCommand", String.class, Map.class);
+        } catch (final NoSuchMethodException e) {
+            return;
+        }
+        try {
+            executeCdpCommand.invoke(webDriver, "Page.addScriptToEvaluateOnNewDocument",
+                    Collections.singletonMap("source", PageContext.getLongTaskObserverScript()));
+        } catch (final Exception e) {
+            SeleniumProxyConfig.debugMessage("Cannot observe the long tasks from the start of the page with "
+                    + webDriver.getClass().getName() + ": " + e);
+        }
+    }
+
+    /** Read what the page did since the last action before the transaction timer is stopped or replaced, so that the
+     * resources loaded and the long tasks run after the last action of a transaction are counted in that transaction and
+     * not in the next one.
+     * Only the collections that belong to the transaction are run: the values of the last action were already sent.
+     * @param webDriver
+     */
+    void readTransactionTail(final WebDriver webDriver) {
+        final Map<String, Object> options = proxyConfig.getTransactionTailScriptOptions();
+        if (options.isEmpty() || !proxyConfig.isTransactionStarted() || !proxyConfig.getDriverSession().isPageContextScriptActive()
+                || !(webDriver instanceof JavascriptExecutor)) {
+            return;
+        }
+        try {
+            addToTransaction(PageContext.fromScript((JavascriptExecutor) webDriver, options));
+        } catch (final Exception e) {
+            // the transaction is still closed, only without its tail.
+            SeleniumProxyConfig.debugMessage("Exception reading the end of the transaction with " + webDriver.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void addToTransaction(final PageContext pageContext) {
+        final Optional<ResourceTimingAggregator> resourceTimingAggregator = proxyConfig.getResourceTimingAggregator();
+        if (resourceTimingAggregator.isPresent() && !pageContext.getResourceTimings().isEmpty()) {
+            resourceTimingAggregator.get().add(pageContext.getResourceTimings());
+        }
+        final Optional<LongTaskAggregator> longTaskAggregator = proxyConfig.getLongTaskAggregator();
+        if (longTaskAggregator.isPresent() && pageContext.getLongTasks() != null) {
+            longTaskAggregator.get().add(pageContext.getLongTasks());
+        }
+    }
+
     /** Use the dom to get values. From http://www.w3.org/TR/navigation-timing/
      * @param webDriver
      * @return
      */
-    synchronized Map<String, Long> getAdvancedValues(final WebDriver webDriver) {
-        if (!navigationTimingActive || !(webDriver instanceof JavascriptExecutor)) {
+    Map<String, Long> getAdvancedValues(final WebDriver webDriver) {
+        return getAdvancedValues(getPageContext(webDriver));
+    }
+
+    /**
+     * @param pageContext
+     * @return the navigation timing values to send.
+     */
+    Map<String, Long> getAdvancedValues(final PageContext pageContext) {
+        final DriverSession driverSession = proxyConfig.getDriverSession();
+        if (!driverSession.isNavigationTimingActive()
+                || (!pageContext.hasNavigationTiming() && !pageContext.hasMetrics() && pageContext.getSoftNavigation() == null
+                        && !pageContext.hasSamples())) {
             return Collections.emptyMap();
         }
         
         final Map<String, Long> advancedValues = new LinkedHashMap<>();
         
         try {
-            final JavascriptExecutor javascriptExecutor = (JavascriptExecutor)webDriver;
-            final Long redirectStart = (Long)javascriptExecutor.executeScript("return window.performance.timing.redirectStart");
-            final Long fetchStart = (Long)javascriptExecutor.executeScript("return window.performance.timing.fetchStart");
-            final Long responseStart = (Long)javascriptExecutor.executeScript("return window.performance.timing.responseStart");
-            final Long domContentLoadedEventStart = (Long)javascriptExecutor.executeScript("return window.performance.timing.domContentLoadedEventStart");
-            final Long domLoadEventStart = (Long)javascriptExecutor.executeScript("return window.performance.timing.loadEventStart");
-            final Long domLoadEventEnd = (Long)javascriptExecutor.executeScript("return window.performance.timing.loadEventEnd");
-    
-            final long start = redirectStart == 0 ? fetchStart : redirectStart;
-            
-            final Long timeToFirstByte = safeSubtract(responseStart, start);
-            final Long domContentLoaded = safeSubtract(domContentLoadedEventStart, start);
-            final Long onLoad = safeSubtract(domLoadEventStart, start);
-            final Long documentComplete = safeSubtract(domLoadEventEnd, start);
-            
-            // the key is the label that appears in NeoLoad. A slash (/) adds another path element.
-            putIfNotNull(advancedValues, "Time To First Byte", timeToFirstByte);
-            putIfNotNull(advancedValues, "DOM Content Loaded", domContentLoaded);
-            putIfNotNull(advancedValues, "On Load", onLoad);
-            putIfNotNull(advancedValues, "Document Complete", documentComplete);
+            if (pageContext.hasNavigationTiming()) {
+                putNavigationTimingValues(advancedValues, pageContext);
+            }
+
+            // Navigation Timing Level 2 and paint timing, in milliseconds since the start of the navigation.
+            putIfNotNull(advancedValues, "DNS Lookup", round(pageContext.getMetric("dns")));
+            putIfNotNull(advancedValues, "TCP Connection", round(pageContext.getMetric("tcp")));
+            putIfNotNull(advancedValues, "TLS Handshake", round(pageContext.getMetric("tls")));
+            putIfNotNull(advancedValues, "First Paint", round(pageContext.getMetric("firstPaint")));
+            putIfNotNull(advancedValues, "First Contentful Paint", round(pageContext.getMetric("firstContentfulPaint")));
+            putIfNotNull(advancedValues, "Largest Contentful Paint", round(pageContext.getMetric("largestContentfulPaint")));
+            putIfNotNull(advancedValues, TRANSFER_SIZE_LABEL, round(pageContext.getMetric("transferSize")));
+            final Double cumulativeLayoutShift = pageContext.getMetric("cumulativeLayoutShift");
+            putIfNotNull(advancedValues, CUMULATIVE_LAYOUT_SHIFT_LABEL,
+                    cumulativeLayoutShift == null ? null : round(cumulativeLayoutShift * CUMULATIVE_LAYOUT_SHIFT_SCALE));
             
         } catch (final Exception e) {
-            SeleniumProxyConfig.debugMessage("Exception using navigating timing with " + webDriver.getClass().getName() + ": " + e.getMessage());
+            SeleniumProxyConfig.debugMessage("Exception using navigating timing with " + pageContext.getURL() + ": " + e.getMessage());
             
             // if anything ever goes wrong then give up.
-            navigationTimingActive = false;
+            driverSession.disableNavigationTiming();
             return Collections.emptyMap();
         }
 
-        // make sure we're not sending exactly the same values as last time.
-        final String currentDomain = getDomainName(webDriver.getCurrentUrl());
-        if (navigationTimingPreviousDomain.equals(currentDomain) && mapsAreEqual(navigationTimingPreviousAdvancedValues, advancedValues)) {
-            // nothing has changed so don't send the same data over again.
-            return Collections.emptyMap();
+        // make sure we're not sending the values of the same navigation again.
+        final Map<String, Long> valuesToSend = driverSession.removeSent(pageContext.getTimeOrigin(), advancedValues);
+        if (pageContext.getSoftNavigation() == null && !pageContext.hasSamples()) {
+            return valuesToSend;
         }
-        
-        navigationTimingPreviousDomain = currentDomain;
-        navigationTimingPreviousAdvancedValues = advancedValues;
-        
-        return advancedValues;
+        // soft navigations share the time origin of the page but the script only returns each one once, and samples
+        // are sent with every action.
+        final Map<String, Long> valuesPerAction = new LinkedHashMap<>(valuesToSend);
+        putIfNotNull(valuesPerAction, SOFT_NAVIGATION_LABEL, round(pageContext.getSoftNavigation()));
+        putIfNotNull(valuesPerAction, JS_HEAP_USED_LABEL, round(pageContext.getSample("jsHeapUsed")));
+        putIfNotNull(valuesPerAction, DOM_NODES_LABEL, round(pageContext.getSample("domNodes")));
+        return valuesPerAction;
     }
-    
-    /**
-     * @param map1
-     * @param map2
-     * @return
+
+    /** The values derived from the deprecated window.performance.timing fields.
+     * @param advancedValues
+     * @param pageContext
      */
-    private static <K,V> boolean mapsAreEqual(final Map<K,V>map1, Map<K,V> map2) {
-        if (map1.size() != map2.size()) {
-           return false;
-        }
+    private static void putNavigationTimingValues(final Map<String, Long> advancedValues, final PageContext pageContext) {
+        final Long redirectStart = pageContext.getNavigationTiming("redirectStart");
+        final Long fetchStart = pageContext.getNavigationTiming("fetchStart");
+        final Long responseStart = pageContext.getNavigationTiming("responseStart");
+        final Long domContentLoadedEventStart = pageContext.getNavigationTiming("domContentLoadedEventStart");
+        final Long domLoadEventStart = pageContext.getNavigationTiming("loadEventStart");
+        final Long domLoadEventEnd = pageContext.getNavigationTiming("loadEventEnd");
+    
+        final long start = redirectStart == 0 ? fetchStart : redirectStart;
         
-        for (final Map.Entry<K, V> entry: map1.entrySet()) {
-            if (!map2.containsKey(entry.getKey())) {
-                return false;
-            }
-            
-            final V map2Value = map2.get(entry.getKey());
-            if (entry.getValue() == null && map2Value != null) {
-                return false;
-            }
-            
-            if (!entry.getValue().equals(map2Value)) {
-                return false;
-            }
-        }
+        final Long timeToFirstByte = safeSubtract(responseStart, start);
+        final Long domContentLoaded = safeSubtract(domContentLoadedEventStart, start);
+        final Long onLoad = safeSubtract(domLoadEventStart, start);
+        final Long documentComplete = safeSubtract(domLoadEventEnd, start);
         
-        return true;
-     }
+        // the key is the label that appears in NeoLoad. A slash (/) adds another path element.
+        putIfNotNull(advancedValues, "Time To First Byte", timeToFirstByte);
+        putIfNotNull(advancedValues, "DOM Content Loaded", domContentLoaded);
+        putIfNotNull(advancedValues, "On Load", onLoad);
+        putIfNotNull(advancedValues, "Document Complete", documentComplete);
+    }
 
+    /**
+     * @param value
+     * @return the value rounded to the nearest whole number, or null if it is null.
+     */
+    private static Long round(final Double value) {
+        return value == null ? null : Math.round(value);
+    }
+    
     /** Only add the value if it's not null.
      * @param map
      * @param key
@@ -288,22 +471,4 @@ public class ProxySendHelper {
         
         return val1 - val2;
     }
-    
-    /** From http://stackoverflow.com/a/9608008
-     * @param url
-     * @return the domain name from a URL
-     */
-    private static String getDomainName(final String url) {
-        final URI uri;
-        try {
-            uri = new URI(url);
-            final String domain = uri.getHost() == null ? "" : uri.getHost();
-            
-            return domain.startsWith("www.") ? domain.substring(4) : domain;
-            
-        } catch (Exception e) {
-            // don't care.
-            return "";
-        }
-    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.TimerBuilder;
+
+/** Adds up the resources loaded by the browser during a transaction, per resource type.
+ * <p>
+ * page-context.js reads the new resource timing entries after each action and sends back a {@link Batch} with the
+ * totals per type and the slowest resources, so the work per action does not depend on the number of resources of
+ * the page. When the transaction ends the totals are sent as entries under the transaction path.
+ */
+final class ResourceTimingAggregator {
+
+	static final String RESOURCES_NAME = "Resources";
+	static final String SLOWEST_NAME = "Slowest";
+	static final String COUNT_NAME = "Count";
+	static final String TRANSFER_SIZE_NAME = "Transfer Size";
+	static final String BLOCKED_TIME_NAME = "Blocked Time";
+
+	private static final Comparator<SlowResource> SLOWEST_FIRST =
+			(first, second) -> Double.compare(second.getDuration(), first.getDuration());
+
+	/** How many of the slowest resources are kept per transaction. */
+	private final int slowestCount;
+
+	/** The path of the current transaction, null outside of a transaction. */
+	private List<String> transactionPath = null;
+
+	/** Key: resource type. Sorted so entries come out in a stable order. */
+	private final Map<String, TypeTotals> totalsByType = new TreeMap<>();
+
+	/** Slowest first, at most {@link #slowestCount}. */
+	private final List<SlowResource> slowest = new ArrayList<>();
+
+	/** @param slowestCount how many of the slowest resources are kept per transaction. */
+	ResourceTimingAggregator(final int slowestCount) {
+		this.slowestCount = Math.max(0, slowestCount);
+	}
+
+	int getSlowestCount() {
+		return slowestCount;
+	}
+
+	/** Start collecting for a transaction, forgetting what was not drained.
+	 * @param path the path of the transaction, under which the entries are sent.
+	 */
+	synchronized void start(final List<String> path) {
+		clear();
+		this.transactionPath = path;
+	}
+
+	/** Stop collecting until the next transaction. */
+	synchronized void stop() {
+		clear();
+		this.transactionPath = null;
+	}
+
+	/** Add the resources read after an action. Ignored outside of a transaction.
+	 * @param batch
+	 */
+	synchronized void add(final Batch batch) {
+		if (transactionPath == null) {
+			return;
+		}
+		for (final Map.Entry<String, TypeTotals> entry: batch.getTotalsByType().entrySet()) {
+			final TypeTotals totals = totalsByType.get(entry.getKey());
+			totalsByType.put(entry.getKey(), totals == null ? entry.getValue() : totals.plus(entry.getValue()));
+		}
+		if (slowestCount > 0 && !batch.getSlowest().isEmpty()) {
+			slowest.addAll(batch.getSlowest());
+			Collections.sort(slowest, SLOWEST_FIRST);
+			if (slowest.size() > slowestCount) {
+				slowest.subList(slowestCount, slowest.size()).clear();
+			}
+		}
+	}
+
+	/** Create the entries of the current transaction and start over.
+	 * @param timestamp the timestamp of the entries, the start of the transaction.
+	 * @return the entries, empty outside of a transaction or if no resource was loaded.
+	 */
+	synchronized List<Entry> drain(final long timestamp) {
+		if (transactionPath == null || (totalsByType.isEmpty() && slowest.isEmpty())) {
+			clear();
+			return Collections.emptyList();
+		}
+		final List<Entry> entries = new ArrayList<>(totalsByType.size() * 3 + slowest.size());
+		for (final Map.Entry<String, TypeTotals> entry: totalsByType.entrySet()) {
+			final TypeTotals totals = entry.getValue();
+			entries.add(newEntry(timestamp, entry.getKey(), COUNT_NAME, totals.getCount(), "count", null));
+			entries.add(newEntry(timestamp, entry.getKey(), TRANSFER_SIZE_NAME, totals.getTransferSize(), "bytes", null));
+			entries.add(newEntry(timestamp, entry.getKey(), BLOCKED_TIME_NAME, totals.getBlockedTime(), TimerBuilder.DEFAULT_UNIT, null));
+		}
+		for (int i = 0; i < slowest.size(); i++) {
+			// the rank is the path element and the resource is the URL, so the number of paths stays bounded.
+			final SlowResource resource = slowest.get(i);
+			entries.add(newEntry(timestamp, SLOWEST_NAME, Integer.toString(i + 1), resource.getDuration(), TimerBuilder.DEFAULT_UNIT,
+					resource.getURL()));
+		}
+		clear();
+		return entries;
+	}
+
+	private void clear() {
+		totalsByType.clear();
+		slowest.clear();
+	}
+
+	private Entry newEntry(final long timestamp, final String group, final String name, final double value, final String unit,
+			final String url) {
+		final List<String> path = new ArrayList<>(transactionPath.size() + 3);
+		path.addAll(transactionPath);
+		path.add(RESOURCES_NAME);
+		path.add(group);
+		path.add(name);
+		final EntryBuilder entryBuilder = new EntryBuilder(path, timestamp);
+		entryBuilder.url(url);
+		entryBuilder.value(value);
+		entryBuilder.unit(unit);
+		return entryBuilder.build();
+	}
+
+	/** The resources read after one action. */
+	static final class Batch {
+
+		static final Batch EMPTY = new Batch(Collections.<String, TypeTotals>emptyMap(), Collections.<SlowResource>emptyList());
+
+		private final Map<String, TypeTotals> totalsByType;
+		private final List<SlowResource> slowest;
+
+		Batch(final Map<String, TypeTotals> totalsByType, final List<SlowResource> slowest) {
+			this.totalsByType = totalsByType;
+			this.slowest = slowest;
+		}
+
+		Map<String, TypeTotals> getTotalsByType() {
+			return totalsByType;
+		}
+
+		List<SlowResource> getSlowest() {
+			return slowest;
+		}
+
+		boolean isEmpty() {
+			return totalsByType.isEmpty() && slowest.isEmpty();
+		}
+	}
+
+	/** The totals of one resource type, such as script or img. */
+	static final class TypeTotals {
+
+		private final long count;
+		private final long transferSize;
+		private final double blockedTime;
+
+		/**
+		 * @param count number of resources.
+		 * @param transferSize bytes transferred over the network, 0 for cached and cross-origin resources.
+		 * @param blockedTime milliseconds spent waiting before the request was sent, excluding DNS and connection.
+		 */
+		TypeTotals(final long count, final long transferSize, final double blockedTime) {
+			this.count = count;
+			this.transferSize = transferSize;
+			this.blockedTime = blockedTime;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		long getTransferSize() {
+			return transferSize;
+		}
+
+		double getBlockedTime() {
+			return blockedTime;
+		}
+
+		TypeTotals plus(final TypeTotals other) {
+			return new TypeTotals(count + other.count, transferSize + other.transferSize, blockedTime + other.blockedTime);
+		}
+	}
+
+	/** One of the slowest resources. */
+	static final class SlowResource {
+
+		private final String url;
+		private final double duration;
+
+		SlowResource(final String url, final double duration) {
+			this.url = url;
+			this.duration = duration;
+		}
+
+		String getURL() {
+			return url;
+		}
+
+		double getDuration() {
+			return duration;
+		}
+	}
+}
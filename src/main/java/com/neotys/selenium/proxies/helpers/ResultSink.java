@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+/** A destination for the entries, in addition to the NeoLoad Data Exchange API.
+ * <p>
+ * Implementations are discovered with {@link java.util.ServiceLoader}: list the class name in
+ * META-INF/services/com.neotys.selenium.proxies.helpers.ResultSink. Each sink gets its own background thread and
+ * bounded queue, so a slow sink neither delays the browser nor the other sinks. Settings can be read with
+ * {@link ModeHelper#getSetting(String, String)}.
+ */
+public interface ResultSink {
+
+	/** @return a short name used in logs and thread names. */
+	String getName();
+
+	/** Called once before any entry is sent.
+	 * @return false if this sink is not configured and should not be used.
+	 */
+	boolean open() throws IOException;
+
+	/** Called from the background thread of the sink only.
+	 * @param entries
+	 */
+	void send(List<Entry> entries) throws IOException;
+
+	/** Called once after the last entries are sent. */
+	void close() throws IOException;
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+/** Delivers the same entries to every {@link ResultSink}. Each sink has its own {@link AsyncEntrySender}: dispatching
+ * only queues the entries, and a sink whose queue is full drops entries without affecting the others.
+ */
+class ResultSinkDispatcher {
+
+	/** Key: the sink, value: the sender feeding it. */
+	private final Map<ResultSink, AsyncEntrySender> senders = new LinkedHashMap<>();
+
+	/**
+	 * @param sinks the sinks to open; those that fail to open or are not configured are ignored.
+	 * @param queueSize per sink.
+	 * @param batchSize
+	 * @param lingerMillis
+	 */
+	ResultSinkDispatcher(final List<ResultSink> sinks, final int queueSize, final int batchSize, final long lingerMillis) {
+		for (final ResultSink sink: sinks) {
+			try {
+				if (!sink.open()) {
+					SeleniumProxyConfig.debugMessage("Result sink " + sink.getName() + " is not configured.");
+					continue;
+				}
+			} catch (final Exception e) {
+				SeleniumProxyConfig.errorMessage("Cannot open result sink " + sink.getName() + ": " + e);
+				continue;
+			}
+			SeleniumProxyConfig.debugMessage("Sending results to " + sink.getName());
+			senders.put(sink, new AsyncEntrySender(sink::send, "result sink " + sink.getName(), "NeoLoad-ResultSink-" + sink.getName(),
+					SeleniumProxyConfig.OPT_RESULT_SINK_QUEUE_SIZE, queueSize, batchSize, lingerMillis));
+		}
+	}
+
+	/** @return the sinks registered with {@link ServiceLoader}. */
+	static List<ResultSink> loadSinks() {
+		final List<ResultSink> sinks = new ArrayList<>();
+		final Iterator<ResultSink> iterator = ServiceLoader.load(ResultSink.class).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext()) {
+					break;
+				}
+				sinks.add(iterator.next());
+			} catch (final ServiceConfigurationError e) {
+				// one broken sink must not prevent the others from loading.
+				SeleniumProxyConfig.errorMessage("Cannot load a result sink: " + e);
+			}
+		}
+		return sinks;
+	}
+
+	/** @return true if at least one sink is used. */
+	boolean hasSinks() {
+		return !senders.isEmpty();
+	}
+
+	/** @return the names of the sinks in use. */
+	List<String> getSinkNames() {
+		final List<String> names = new ArrayList<>(senders.size());
+		for (final ResultSink sink: senders.keySet()) {
+			names.add(sink.getName());
+		}
+		return Collections.unmodifiableList(names);
+	}
+
+	/** Queue entries for every sink without blocking.
+	 * @param entries
+	 */
+	void dispatch(final List<Entry> entries) {
+		for (final AsyncEntrySender sender: senders.values()) {
+			sender.offer(entries);
+		}
+	}
+
+	/** Wait until every sink has sent its queued entries or the timeout expires.
+	 * @param timeoutMillis shared by all sinks.
+	 * @return true if everything was sent.
+	 */
+	boolean flush(final long timeoutMillis) {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		boolean flushed = true;
+		for (final AsyncEntrySender sender: senders.values()) {
+			flushed &= sender.flush(Math.max(0, deadline - System.currentTimeMillis()));
+		}
+		return flushed;
+	}
+
+	/** Flush and close every sink.
+	 * @param timeoutMillis shared by all sinks.
+	 */
+	void close(final long timeoutMillis) {
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		for (final Map.Entry<ResultSink, AsyncEntrySender> sinkAndSender: senders.entrySet()) {
+			sinkAndSender.getValue().close(Math.max(0, deadline - System.currentTimeMillis()));
+			try {
+				sinkAndSender.getKey().close();
+			} catch (final Exception e) {
+				SeleniumProxyConfig.errorMessage("Cannot close result sink " + sinkAndSender.getKey().getName() + ": " + e);
+			}
+		}
+		senders.clear();
+	}
+
+	/**
+	 * @param sinkName
+	 * @return the number of entries the sink dropped because its queue was full, 0 for an unknown sink.
+	 */
+	long getDroppedCount(final String sinkName) {
+		for (final Map.Entry<ResultSink, AsyncEntrySender> sinkAndSender: senders.entrySet()) {
+			if (sinkAndSender.getKey().getName().equals(sinkName)) {
+				return sinkAndSender.getValue().getDroppedCount();
+			}
+		}
+		return 0;
+	}
+}
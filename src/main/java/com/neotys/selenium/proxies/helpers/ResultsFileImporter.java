@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.common.base.Optional;
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.error.NeotysAPIException;
+
+/** Sends a results file written by {@link ResultsFileSink} to the NeoLoad Data Exchange API.
+ * <p>
+ * Usage: java -Dnl.data.exchange.url=... com.neotys.selenium.proxies.helpers.ResultsFileImporter file [batchSize]
+ * <br>The connection settings are the usual nl. options. Entries are sent in a session opened with the context recorded
+ * in the file, so they show up under the same software, location and script as if they had been sent live.
+ */
+public final class ResultsFileImporter {
+
+	static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private ResultsFileImporter() {
+	}
+
+	/** Stream the entries of a file to the Data Exchange API, in one session per context found in the file.
+	 * @param file
+	 * @param transportFactory opens a session with the context recorded in the file. The context is empty for files
+	 * written by older versions.
+	 * @param batchSize number of entries per call.
+	 * @return the number of entries sent.
+	 */
+	static long importFile(final Path file, final Function<Map<String, String>, DataExchangeTransport> transportFactory,
+			final int batchSize) throws GeneralSecurityException, IOException, URISyntaxException, NeotysAPIException {
+		long count = 0;
+		final List<Entry> batch = new ArrayList<>(batchSize);
+		final Map<Map<String, String>, DataExchangeTransport> transports = new HashMap<>();
+		try (final ResultsFileReader reader = new ResultsFileReader(file)) {
+			Map<String, String> context = null;
+			DataExchangeTransport dataExchangeTransport = null;
+			Entry entry;
+			while ((entry = reader.next()) != null) {
+				if (reader.getContext() != context) {
+					// a new header: entries before it belong to the previous session.
+					if (!batch.isEmpty()) {
+						dataExchangeTransport.addEntries(new ArrayList<>(batch));
+						count += batch.size();
+						batch.clear();
+					}
+					context = reader.getContext();
+					dataExchangeTransport = transports.computeIfAbsent(context, transportFactory);
+				}
+				batch.add(entry);
+				if (batch.size() >= batchSize) {
+					dataExchangeTransport.addEntries(new ArrayList<>(batch));
+					count += batch.size();
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				dataExchangeTransport.addEntries(new ArrayList<>(batch));
+				count += batch.size();
+			}
+			if (reader.isTruncated()) {
+				SeleniumProxyConfig.errorMessage("The last record of " + file + " is incomplete and was ignored.");
+			}
+		}
+		return count;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: " + ResultsFileImporter.class.getName() + " file [batchSize]");
+			System.exit(1);
+		}
+		final int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BATCH_SIZE;
+
+		final SeleniumProxyConfig proxyConfig = new SeleniumProxyConfig(ResultsFileImporter.class.getSimpleName());
+		if (!SeleniumProxyConfig.isEnabled()) {
+			System.err.println("The Data Exchange API is disabled.");
+			System.exit(1);
+		}
+		final long count = importFile(Paths.get(args[0]), context -> {
+			final Optional<DataExchangeTransport> transport = context.isEmpty()
+					// written before the context was recorded: use the one of the importer.
+					? proxyConfig.getDataExchangeTransport()
+					: proxyConfig.newDataExchangeTransport(context);
+			if (!transport.isPresent()) {
+				throw new IllegalStateException("The Data Exchange API is disabled.");
+			}
+			return transport.get();
+		}, Math.max(1, batchSize));
+		System.out.println(count + " entries sent from " + args[0]);
+	}
+}
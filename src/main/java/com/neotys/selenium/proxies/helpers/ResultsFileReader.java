@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.Status;
+import com.neotys.rest.dataexchange.model.StatusBuilder;
+
+/** Reads the entries of a file written by {@link ResultsFileWriter}, one record at a time. */
+class ResultsFileReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** Index: id. Index 0 is null. */
+	private final List<String> strings = new ArrayList<>();
+	private final List<List<String>> paths = new ArrayList<>();
+
+	private long previousTimestamp = 0;
+
+	/** The context of the last header read. Key: property name of the context (Software, Os, ...). */
+	private Map<String, String> context = Collections.emptyMap();
+
+	/** True once a record cut short was found at the end of the file. */
+	private boolean truncated = false;
+
+	ResultsFileReader(final Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		buffer.flip();
+		resetDictionaries();
+	}
+
+	/** @return the next entry, or null at the end of the file. */
+	Entry next() throws IOException {
+		while (fill(4)) {
+			final int length = buffer.getInt(buffer.position());
+			if (length <= 0 || !fill(4 + length)) {
+				truncated = true;
+				return null;
+			}
+			buffer.position(buffer.position() + 4);
+			final int end = buffer.position() + length;
+			final byte type = buffer.get();
+			final Entry entry = readRecord(type);
+			// skip whatever a later version may have added.
+			buffer.position(end);
+			if (entry != null) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/** @return the context of the session the last entry returned by {@link #next()} was recorded in, empty for files
+	 * written before the context was recorded. A new map is returned after each header.
+	 */
+	Map<String, String> getContext() {
+		return context;
+	}
+
+	/** @return true if the file ended in the middle of a record, which happens when the writer was killed. */
+	boolean isTruncated() {
+		return truncated;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/** @return the entry, or null for a dictionary record. */
+	private Entry readRecord(final byte type) throws IOException {
+		switch (type) {
+			case ResultsFileWriter.RECORD_HEADER:
+				if (buffer.getInt() != ResultsFileWriter.MAGIC) {
+					throw new IOException("Not a results file.");
+				}
+				final byte version = buffer.get();
+				if (version > ResultsFileWriter.VERSION) {
+					throw new IOException("Unsupported results file version: " + version);
+				}
+				final Map<String, String> properties = new LinkedHashMap<>();
+				if (version >= 2) {
+					for (int count = getVarInt(); count > 0; count--) {
+						properties.put(getString(), getString());
+					}
+				}
+				context = Collections.unmodifiableMap(properties);
+				resetDictionaries();
+				return null;
+			case ResultsFileWriter.RECORD_STRING:
+				define(strings, getVarInt(), getString());
+				return null;
+			case ResultsFileWriter.RECORD_PATH:
+				final int id = getVarInt();
+				final String[] path = new String[getVarInt()];
+				for (int i = 0; i < path.length; i++) {
+					path[i] = strings.get(getVarInt());
+				}
+				define(paths, id, Arrays.asList(path));
+				return null;
+			case ResultsFileWriter.RECORD_ENTRY:
+				return readEntry();
+			default:
+				// unknown record from a later version.
+				return null;
+		}
+	}
+
+	private Entry readEntry() {
+		final List<String> path = paths.get(getVarInt());
+		final long timestamp = previousTimestamp + ResultsFileWriter.unZigZag(getVarLong());
+		previousTimestamp = timestamp;
+
+		final EntryBuilder entryBuilder = new EntryBuilder(path, timestamp);
+		final int flags = buffer.get();
+		if ((flags & ResultsFileWriter.FLAG_VALUE) != 0) {
+			entryBuilder.value(buffer.getDouble());
+		}
+		entryBuilder.unit(strings.get(getVarInt()));
+		entryBuilder.url(getString());
+		if ((flags & ResultsFileWriter.FLAG_STATUS) != 0) {
+			final StatusBuilder statusBuilder = new StatusBuilder();
+			statusBuilder.code(strings.get(getVarInt()));
+			statusBuilder.message(getString());
+			final String state = strings.get(getVarInt());
+			if (state != null) {
+				statusBuilder.state(Status.State.valueOf(state));
+			}
+			entryBuilder.status(statusBuilder.build());
+		}
+		return entryBuilder.build();
+	}
+
+	private void resetDictionaries() {
+		strings.clear();
+		strings.add(null);
+		paths.clear();
+		paths.add(null);
+		previousTimestamp = 0;
+	}
+
+	private static <T> void define(final List<T> dictionary, final int id, final T value) {
+		while (dictionary.size() <= id) {
+			dictionary.add(null);
+		}
+		dictionary.set(id, value);
+	}
+
+	/**
+	 * @param size
+	 * @return true if at least size bytes are available in the buffer.
+	 */
+	private boolean fill(final int size) throws IOException {
+		if (buffer.remaining() >= size) {
+			return true;
+		}
+		if (size > buffer.capacity()) {
+			final ByteBuffer larger = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+			larger.put(buffer);
+			buffer = larger;
+		} else {
+			buffer.compact();
+		}
+		while (buffer.position() < size) {
+			if (channel.read(buffer) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= size;
+	}
+
+	private String getString() {
+		final int length = getVarInt() - 1;
+		if (length < 0) {
+			return null;
+		}
+		final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	private int getVarInt() {
+		return (int) getVarLong();
+	}
+
+	private long getVarLong() {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
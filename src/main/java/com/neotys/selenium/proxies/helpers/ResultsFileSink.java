@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+/** Writes the entries to the local results file set with {@link SeleniumProxyConfig#OPT_RESULTS_FILE}.
+ * The file can be sent to NeoLoad later with {@link ResultsFileImporter}, in a session with the same context.
+ */
+public class ResultsFileSink implements ResultSink {
+
+	private ResultsFileWriter writer;
+
+	@Override
+	public String getName() {
+		return "ResultsFile";
+	}
+
+	@Override
+	public boolean open() throws IOException {
+		final String fileName = ModeHelper.getSetting(SeleniumProxyConfig.OPT_RESULTS_FILE, null);
+		if (fileName == null || fileName.trim().isEmpty()) {
+			return false;
+		}
+		final Path file = Paths.get(fileName.trim()).toAbsolutePath();
+		Files.createDirectories(file.getParent());
+		// the sinks are opened once the transport has opened its session, so the context is known.
+		writer = new ResultsFileWriter(file, SeleniumProxyConfig.getDataExchangeContext());
+		SeleniumProxyConfig.debugMessage("Writing results to " + file);
+		return true;
+	}
+
+	@Override
+	public void send(final List<Entry> entries) throws IOException {
+		writer.write(entries);
+		// batches are already grouped by the sender, so this is at most one write per batch.
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
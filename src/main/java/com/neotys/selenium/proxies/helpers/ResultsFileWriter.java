@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.Status;
+
+/** Appends entries to a local results file that {@link ResultsFileImporter} can later send to NeoLoad.
+ * <p>
+ * The file is a sequence of records, each one an int length followed by a type byte and the payload. Every writer
+ * starts with a header record holding the context of the Data Exchange session, after which strings and paths are
+ * written once in dictionary records and referred to by id. Timestamps are written as the difference with the
+ * previous entry. Numbers are variable length, so a typical entry takes a few tens of bytes. A record cut short by a
+ * crash is ignored when reading.
+ */
+class ResultsFileWriter implements Closeable {
+
+	/** "NLRF" */
+	static final int MAGIC = 0x4E4C5246;
+	static final byte VERSION = 2;
+
+	/** Starts a new set of dictionaries: int magic, byte version, then since version 2 varint count and a name and a
+	 * value string per context property. */
+	static final byte RECORD_HEADER = 0;
+	/** Defines a string: varint id, string. */
+	static final byte RECORD_STRING = 1;
+	/** Defines a path: varint id, varint size, varint string id per element. */
+	static final byte RECORD_PATH = 2;
+	/** An entry: varint path id, varlong timestamp delta, then the optional fields, see {@link #writeEntry(Entry)}. */
+	static final byte RECORD_ENTRY = 3;
+
+	static final int FLAG_VALUE = 1;
+	static final int FLAG_STATUS = 2;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+
+	/** Records waiting to be written to the channel. */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** The record being built, grown when needed. */
+	private ByteBuffer record = ByteBuffer.allocate(1024);
+
+	/** Ids start at 1 so that 0 can stand for null. */
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final Map<List<String>, Integer> pathIds = new HashMap<>();
+
+	private long previousTimestamp = 0;
+
+	/**
+	 * @param file created if needed, appended to otherwise.
+	 */
+	ResultsFileWriter(final Path file) throws IOException {
+		this(file, Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * @param file created if needed, appended to otherwise.
+	 * @param context the context of the Data Exchange session, so that the entries are imported under the same one.
+	 */
+	ResultsFileWriter(final Path file, final Map<String, String> context) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		while (true) {
+			try {
+				startRecord(RECORD_HEADER);
+				record.putInt(MAGIC);
+				record.put(VERSION);
+				putVarInt(context.size());
+				for (final Map.Entry<String, String> property: context.entrySet()) {
+					putString(property.getKey());
+					putString(property.getValue());
+				}
+				break;
+			} catch (final BufferOverflowException e) {
+				growRecord();
+			}
+		}
+		endRecord();
+	}
+
+	/** Buffer entries, writing to the file whenever the buffer is full.
+	 * @param entries
+	 */
+	synchronized void write(final List<Entry> entries) throws IOException {
+		for (final Entry entry: entries) {
+			writeEntry(entry);
+		}
+	}
+
+	/** Write the buffered records to the file. */
+	synchronized void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void writeEntry(final Entry entry) throws IOException {
+		final int pathId = pathId(entry.getPath());
+		final int unitId = stringId(entry.getUnit());
+		final Status status = entry.getStatus();
+		final int codeId = status == null ? 0 : stringId(status.getCode());
+		final int stateId = status == null || status.getState() == null ? 0 : stringId(status.getState().name());
+
+		while (true) {
+			try {
+				startRecord(RECORD_ENTRY);
+				putVarInt(pathId);
+				putVarLong(zigZag(entry.getTimestamp() - previousTimestamp));
+				final Double value = entry.getValue();
+				record.put((byte) ((value != null ? FLAG_VALUE : 0) | (status != null ? FLAG_STATUS : 0)));
+				if (value != null) {
+					record.putDouble(value);
+				}
+				putVarInt(unitId);
+				putString(entry.getUrl());
+				if (status != null) {
+					putVarInt(codeId);
+					putString(status.getMessage());
+					putVarInt(stateId);
+				}
+				break;
+			} catch (final BufferOverflowException e) {
+				growRecord();
+			}
+		}
+		endRecord();
+		previousTimestamp = entry.getTimestamp();
+	}
+
+	/** @return the id of the string, 0 for null. A dictionary record is written the first time. */
+	private int stringId(final String value) throws IOException {
+		if (value == null) {
+			return 0;
+		}
+		Integer id = stringIds.get(value);
+		if (id == null) {
+			id = stringIds.size() + 1;
+			stringIds.put(value, id);
+			while (true) {
+				try {
+					startRecord(RECORD_STRING);
+					putVarInt(id);
+					putString(value);
+					break;
+				} catch (final BufferOverflowException e) {
+					growRecord();
+				}
+			}
+			endRecord();
+		}
+		return id;
+	}
+
+	/** @return the id of the path. A dictionary record is written the first time. */
+	private int pathId(final List<String> path) throws IOException {
+		Integer id = pathIds.get(path);
+		if (id == null) {
+			final int[] elementIds = new int[path.size()];
+			for (int i = 0; i < elementIds.length; i++) {
+				elementIds[i] = stringId(path.get(i));
+			}
+			id = pathIds.size() + 1;
+			// copy so that later changes to the list do not corrupt the dictionary.
+			pathIds.put(new ArrayList<>(path), id);
+			while (true) {
+				try {
+					startRecord(RECORD_PATH);
+					putVarInt(id);
+					putVarInt(elementIds.length);
+					for (final int elementId: elementIds) {
+						putVarInt(elementId);
+					}
+					break;
+				} catch (final BufferOverflowException e) {
+					growRecord();
+				}
+			}
+			endRecord();
+		}
+		return id;
+	}
+
+	private void startRecord(final byte type) {
+		record.clear();
+		record.putInt(0);
+		record.put(type);
+	}
+
+	private void growRecord() {
+		record = ByteBuffer.allocate(record.capacity() * 2);
+	}
+
+	/** Fill in the length of the record and move it to the output buffer. */
+	private void endRecord() throws IOException {
+		record.putInt(0, record.position() - 4);
+		record.flip();
+		if (record.remaining() > buffer.remaining()) {
+			flush();
+		}
+		if (record.remaining() > buffer.remaining()) {
+			// larger than the whole buffer.
+			while (record.hasRemaining()) {
+				channel.write(record);
+			}
+		} else {
+			buffer.put(record);
+		}
+	}
+
+	private void putString(final String value) {
+		if (value == null) {
+			putVarInt(0);
+			return;
+		}
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putVarInt(bytes.length + 1);
+		record.put(bytes);
+	}
+
+	private void putVarInt(final int value) {
+		putVarLong(value & 0xFFFFFFFFL);
+	}
+
+	private void putVarLong(final long value) {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			record.put((byte) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		record.put((byte) remaining);
+	}
+
+	static long zigZag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unZigZag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -27,6 +27,7 @@
  */
 package com.neotys.selenium.proxies.helpers;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.neotys.extensions.action.perfecto.NLLogger;
@@ -51,12 +52,20 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
+import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static com.neotys.selenium.proxies.helpers.ModeHelper.Mode.DESIGN;
 import static com.neotys.selenium.proxies.helpers.ModeHelper.Mode.END_USER_EXPERIENCE;
@@ -107,9 +116,103 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
     /** An environment variable. */
     public static final String OPT_REGEX_TO_CLEAN_URLS = OPT_PREFIX + "regex.to.clean.urls";
 
+    /** An environment variable. If true then numbers, UUIDs and hashes in URLs are replaced by placeholders such as {id}. */
+    public static final String OPT_URL_TEMPLATES_ENABLED = OPT_PREFIX + "url.templates.enabled";
+
+    /** An environment variable. Comma separated route templates such as /order/{orderId}/items/{itemId}. A URL matching
+     * a template is reported with the template as its path. */
+    public static final String OPT_URL_TEMPLATES = OPT_PREFIX + "url.templates";
+
+    /** An environment variable. Maximum number of distinct paths sent, new paths are then sent as "Other". 0, the
+     * default, means no limit. */
+    public static final String OPT_PATH_MAX_COUNT = OPT_PREFIX + "path.max.count";
+
+    /** An environment variable. Maximum number of URLs and titles whose path elements are cached. */
+    public static final String OPT_PATH_CACHE_SIZE = OPT_PREFIX + "path.cache.size";
+
     /** An environment variable. */
     public static final String OPT_NAVIGATION_TIMING = OPT_PREFIX + "navigation.timing.enabled";
 
+    /** An environment variable. If true then the resources loaded during a transaction are sent per resource type under
+     * the transaction. The resource timing buffer of the browser is cleared after each action. */
+    public static final String OPT_RESOURCE_TIMING_ENABLED = OPT_PREFIX + "resource.timing.enabled";
+
+    /** An environment variable. How many of the slowest resources are sent per transaction, 5 by default. */
+    public static final String OPT_RESOURCE_TIMING_SLOWEST_COUNT = OPT_PREFIX + "resource.timing.slowest.count";
+
+    /** An environment variable. If true then the long tasks of the main thread are sent under the transaction timers,
+     * observed from the start of each document where the driver allows it. */
+    public static final String OPT_LONG_TASKS_ENABLED = OPT_PREFIX + "long.tasks.enabled";
+
+    /** An environment variable. How long an estimate of the offset between the browser and JVM clocks is kept before it
+     * is estimated again, in milliseconds. 60000 by default. */
+    public static final String OPT_CLOCK_OFFSET_REFRESH_MS = OPT_PREFIX + "clock.offset.refresh.ms";
+
+    /** An environment variable. If true then the JS heap used (Chrome only) and the number of DOM nodes of the page are
+     * sent as advanced values of each action. */
+    public static final String OPT_MEMORY_SAMPLING_ENABLED = OPT_PREFIX + "memory.sampling.enabled";
+
+    /** An environment variable. If true then route changes of single-page applications are detected and the time they take
+     * to settle is sent as the "Soft Navigation" advanced value. The History API, fetch and XMLHttpRequest of the page
+     * are hooked to do so. */
+    public static final String OPT_SOFT_NAVIGATION_ENABLED = OPT_PREFIX + "soft.navigation.enabled";
+
+    /** An environment variable. How long to wait after an action for the soft navigation it started to settle, so that it
+     * is sent with that action. 5000 by default, 0 to not wait and send it with the first action after it settled. The
+     * script timeout of the driver must be longer. */
+    public static final String OPT_SOFT_NAVIGATION_TIMEOUT_MS = OPT_PREFIX + "soft.navigation.timeout.ms";
+
+    /** Prefix of the environment variables choosing which calls are timed, per proxied type. For example
+     * "nl.instrumentation.webelement.always.send" and "nl.instrumentation.webelement.send.on.exception" take comma
+     * separated method names, or "*" for all methods, and replace the defaults of {@link InstrumentationPolicy}. */
+    public static final String OPT_INSTRUMENTATION_PREFIX = OPT_PREFIX + "instrumentation.";
+
+    /** An environment variable. How entries are sent to the Data Exchange API: "olingo" (default), "json", or "none" to
+     * only send entries to the result sinks, for example when running offline with {@link #OPT_RESULTS_FILE}. */
+    public static final String OPT_DATA_EXCHANGE_TRANSPORT = OPT_PREFIX + "data.exchange.transport";
+
+    /** An environment variable. Maximum number of entries waiting to be sent to each {@link ResultSink}. */
+    public static final String OPT_RESULT_SINK_QUEUE_SIZE = OPT_PREFIX + "result.sink.queue.size";
+
+    /** An environment variable. If set then entries are also written to this local file, see {@link ResultsFileImporter}. */
+    public static final String OPT_RESULTS_FILE = OPT_PREFIX + "results.file";
+
+    /** An environment variable. If true then entries are sent to the Data Exchange API from a background thread. */
+    public static final String OPT_ASYNC_ENABLED = OPT_PREFIX + "data.exchange.async.enabled";
+
+    /** An environment variable. Maximum number of entries waiting to be sent in asynchronous mode. */
+    public static final String OPT_ASYNC_QUEUE_SIZE = OPT_PREFIX + "data.exchange.async.queue.size";
+
+    /** An environment variable. Maximum number of entries sent in one call in asynchronous mode. */
+    public static final String OPT_ASYNC_BATCH_SIZE = OPT_PREFIX + "data.exchange.async.batch.size";
+
+    /** An environment variable. How long (ms) to wait for a batch to fill up in asynchronous mode. */
+    public static final String OPT_ASYNC_LINGER_MS = OPT_PREFIX + "data.exchange.async.linger.ms";
+
+    /** An environment variable. How long (ms) to wait for queued entries to be sent when the driver quits. */
+    public static final String OPT_ASYNC_FLUSH_TIMEOUT_MS = OPT_PREFIX + "data.exchange.async.flush.timeout.ms";
+
+    /** An environment variable. If true then entries are written to a local spool and replayed to the Data Exchange API. */
+    public static final String OPT_SPOOL_ENABLED = OPT_PREFIX + "data.exchange.spool.enabled";
+
+    /** An environment variable. Directory of the spool files. */
+    public static final String OPT_SPOOL_DIRECTORY = OPT_PREFIX + "data.exchange.spool.dir";
+
+    /** An environment variable. Size in bytes of one spool file. */
+    public static final String OPT_SPOOL_SEGMENT_SIZE = OPT_PREFIX + "data.exchange.spool.segment.size";
+
+    /** An environment variable. Maximum number of spool files, after which the oldest one is dropped. */
+    public static final String OPT_SPOOL_MAX_SEGMENTS = OPT_PREFIX + "data.exchange.spool.max.segments";
+
+    /** An environment variable. If true then entries are aggregated per path and one summary per path is sent per window. */
+    public static final String OPT_AGGREGATION_ENABLED = OPT_PREFIX + "aggregation.enabled";
+
+    /** An environment variable. Length (ms) of an aggregation window. */
+    public static final String OPT_AGGREGATION_WINDOW_MS = OPT_PREFIX + "aggregation.window.ms";
+
+    /** An environment variable. Comma separated percentiles sent for each aggregated path. For example: 50,90,99. */
+    public static final String OPT_AGGREGATION_PERCENTILES = OPT_PREFIX + "aggregation.percentiles";
+
     /** When no script name is provided then this is used. */
     private static final String DEFAULT_SCRIPT_NAME_PREFIX = "SeleniumDelegate";
 
@@ -146,7 +249,8 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 	private Optional<String> userPathName = Optional.absent();
 	private String transactionName;
 
-	private TimerBuilder timerBuilder = null;
+	/** Measures the current transaction. */
+	private MonotonicTimer transactionTimer = null;
 
 	/** Which naming policy to use when creating the path of an entry. */
 	private PathNamingPolicy pathNamingPolicy = SeleniumProxyConfig.PathNamingPolicy.URL;
@@ -157,9 +261,72 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 	/** The regular expression used to clean a URL when building a path. */
 	private String regexToCleanURLs = DEFAULT_REGEX_TO_CLEAN_URLS;
 
+	/** {@link #regexToCleanURLs} compiled on first use. */
+	private volatile Pattern patternToCleanURLs;
+
+	/** Collapses the variable parts of URLs. Absent if neither detectors nor templates are set. */
+	private final Optional<URLTemplater> urlTemplater;
+
+	/** The state of the driver that outlives a single call. */
+	private final DriverSession driverSession = new DriverSession();
+
+	/** Adds up the resources loaded during the current transaction. Absent if resource timing is not enabled. */
+	private final Optional<ResourceTimingAggregator> resourceTimingAggregator;
+
+	/** Adds up the long tasks of the current transaction. Absent if long tasks are not enabled. */
+	private final Optional<LongTaskAggregator> longTaskAggregator;
+
+	/** The options of page-context.js, see the OPTION_ constants of {@link PageContext}. */
+	private final Map<String, Object> pageContextScriptOptions;
+
+	/** How long to wait for a soft navigation to settle, see {@link #OPT_SOFT_NAVIGATION_TIMEOUT_MS}. */
+	private final long softNavigationTimeout = Math.max(0, getLongSetting(OPT_SOFT_NAVIGATION_TIMEOUT_MS, 5000));
+
+	/** The options of page-context.js to read the end of a transaction, empty if there is nothing to read. */
+	private final Map<String, Object> transactionTailScriptOptions;
+
+	/** Path elements built from URLs with the URL naming policy. */
+	private final PathCache urlPathCache = new PathCache("URL", (int) getLongSetting(OPT_PATH_CACHE_SIZE, 1024));
+
+	/** Path elements built from titles with the TITLE naming policy. */
+	private final PathCache titlePathCache = new PathCache("Title", (int) getLongSetting(OPT_PATH_CACHE_SIZE, 1024));
+
+	/** Value of {@link #OPT_DATA_EXCHANGE_TRANSPORT} for the Olingo based Data Exchange API client. */
+	private static final String TRANSPORT_OLINGO = "olingo";
+
+	/** Value of {@link #OPT_DATA_EXCHANGE_TRANSPORT} for {@link JsonDataExchangeTransport}. */
+	private static final String TRANSPORT_JSON = "json";
+
+	/** Value of {@link #OPT_DATA_EXCHANGE_TRANSPORT} to not connect to the Data Exchange API. */
+	private static final String TRANSPORT_NONE = "none";
+
 	/** Sends data to the NeoLoad controller. */
 	private static Optional<DataExchangeAPIClient> dataExchangeAPIClient;
 
+	/** Sends data to the NeoLoad controller, with the client above or with plain JSON requests. */
+	private static Optional<DataExchangeTransport> dataExchangeTransport;
+
+	/** The context of the session opened by the transport above, recorded in the results file. */
+	private static Map<String, String> dataExchangeContext = Collections.emptyMap();
+
+	/** Sends data to the NeoLoad controller from a background thread. Only used in asynchronous mode. */
+	private static AsyncEntrySender asyncEntrySender;
+
+	/** Stores data on disk until the NeoLoad controller accepts it. Only used in spool mode. Absent if it could not be created. */
+	private static Optional<EntrySpool> entrySpool;
+
+	/** Folds new paths into "Other" past a limit. Shared by all drivers since they send to the same controller. */
+	private static final Optional<PathCardinalityLimiter> PATH_CARDINALITY_LIMITER = newPathCardinalityLimiter();
+
+	/** Sends entries to the additional result sinks. Volatile so that sending entries reads it without locking. */
+	private static volatile ResultSinkDispatcher resultSinkDispatcher;
+
+	/** Replaces entries by summaries. Only used in aggregation mode. */
+	private static EntryAggregator entryAggregator;
+
+	/** Whether the hook sending what is left when the JVM exits is registered. */
+	private static boolean shutdownHookRegistered = false;
+
 	/** Sends order to the NeoLoad controller. */
 	private static Optional<DesignAPIClient> designAPIClient;
 
@@ -216,6 +383,42 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
             regexToCleanURLs = regex;
         }
 
+        final String templates = getSetting(OPT_URL_TEMPLATES, "");
+        if ("true".equalsIgnoreCase(getSettingNoDefault(OPT_URL_TEMPLATES_ENABLED)) || !templates.trim().isEmpty()) {
+            urlTemplater = Optional.of(new URLTemplater(templates, "true".equalsIgnoreCase(getSettingNoDefault(OPT_URL_TEMPLATES_ENABLED))));
+        } else {
+            urlTemplater = Optional.absent();
+        }
+
+        if ("true".equalsIgnoreCase(getSettingNoDefault(OPT_RESOURCE_TIMING_ENABLED))) {
+            resourceTimingAggregator = Optional.of(new ResourceTimingAggregator((int) getLongSetting(OPT_RESOURCE_TIMING_SLOWEST_COUNT, 5)));
+        } else {
+            resourceTimingAggregator = Optional.absent();
+        }
+
+        if ("true".equalsIgnoreCase(getSettingNoDefault(OPT_LONG_TASKS_ENABLED))) {
+            longTaskAggregator = Optional.of(new LongTaskAggregator());
+        } else {
+            longTaskAggregator = Optional.absent();
+        }
+
+        final Map<String, Object> scriptOptions = new LinkedHashMap<>();
+        if (resourceTimingAggregator.isPresent()) {
+            scriptOptions.put(PageContext.OPTION_SLOWEST_RESOURCES, resourceTimingAggregator.get().getSlowestCount());
+        }
+        if (longTaskAggregator.isPresent()) {
+            scriptOptions.put(PageContext.OPTION_LONG_TASKS, Boolean.TRUE);
+        }
+        transactionTailScriptOptions = Collections.unmodifiableMap(new LinkedHashMap<>(scriptOptions));
+        scriptOptions.put(PageContext.OPTION_NAVIGATION_TIMING, Boolean.TRUE);
+        if ("true".equalsIgnoreCase(getSettingNoDefault(OPT_MEMORY_SAMPLING_ENABLED))) {
+            scriptOptions.put(PageContext.OPTION_SAMPLES, Boolean.TRUE);
+        }
+        if ("true".equalsIgnoreCase(getSettingNoDefault(OPT_SOFT_NAVIGATION_ENABLED))) {
+            scriptOptions.put(PageContext.OPTION_SOFT_NAVIGATION, Boolean.TRUE);
+        }
+        pageContextScriptOptions = Collections.unmodifiableMap(scriptOptions);
+
         this.driverType = driverType;
     }
 
@@ -285,25 +488,112 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 		return dataExchangeAPIClient;
 	}
 
+	/** @return how to send data to the NeoLoad controller, selected with {@link #OPT_DATA_EXCHANGE_TRANSPORT}. */
+	public synchronized Optional<DataExchangeTransport> getDataExchangeTransport() {
+		if (dataExchangeTransport == null) {
+			dataExchangeTransport = initializeDataExchangeTransport();
+		}
+		return dataExchangeTransport;
+	}
+
+	/** Open a new session with the given context rather than the one of this process. Used to import a results file
+	 * with the context it was recorded with.
+	 * @param context the context properties as named by the Data Exchange API.
+	 * @return a transport that is not shared with the drivers.
+	 */
+	synchronized Optional<DataExchangeTransport> newDataExchangeTransport(final Map<String, String> context) {
+		readConnectionSettings();
+		return initializeDataExchangeTransport(context, false);
+	}
+
+	/** @return the context of the session entries are sent in, empty until the transport is initialized. */
+	static synchronized Map<String, String> getDataExchangeContext() {
+		return dataExchangeContext;
+	}
+
+	private Optional<DataExchangeTransport> initializeDataExchangeTransport() {
+		final Map<String, String> context = initializeContext();
+		synchronized (SeleniumProxyConfig.class) {
+			dataExchangeContext = Collections.unmodifiableMap(context);
+		}
+		return initializeDataExchangeTransport(context, true);
+	}
+
+	/**
+	 * @param context
+	 * @param shareClient true to use the Olingo client returned by {@link #getDataExchangeAPIClient()}.
+	 */
+	private Optional<DataExchangeTransport> initializeDataExchangeTransport(final Map<String, String> context, final boolean shareClient) {
+		final String transport = getSetting(OPT_DATA_EXCHANGE_TRANSPORT, TRANSPORT_OLINGO);
+		if (isEnabled() && TRANSPORT_JSON.equalsIgnoreCase(transport)) {
+			// the Olingo client is not loaded at all.
+			final JsonDataExchangeTransport jsonTransport = new JsonDataExchangeTransport(dataExchangeAPIURL, dataExchangeAPIKey, context);
+			try {
+				debugMessage("Connecting to data exchange API server with JSON requests. URL: " + dataExchangeAPIURL +
+						", API key: " + dataExchangeAPIKey + ", Context: " + context);
+				jsonTransport.connect();
+			} catch (final IOException e) {
+				throw new RuntimeException(ISSUE_CONTACTING_DATA_EXCHANGE_API_MESSAGE, e);
+			}
+			return Optional.<DataExchangeTransport>of(jsonTransport);
+		}
+		if (isEnabled() && TRANSPORT_NONE.equalsIgnoreCase(transport)) {
+			debugMessage("Not connecting to the data exchange API server, entries only go to the result sinks.");
+			return Optional.<DataExchangeTransport>of(entries -> { });
+		}
+		if (!TRANSPORT_OLINGO.equalsIgnoreCase(transport)) {
+			errorMessage("Unknown value for " + OPT_DATA_EXCHANGE_TRANSPORT + ": " + transport + ", using " + TRANSPORT_OLINGO + ".");
+		}
+		final Optional<DataExchangeAPIClient> client = shareClient ? getDataExchangeAPIClient() : initializeDataExchangeAPIClient(context);
+		if (!client.isPresent()) {
+			return Optional.absent();
+		}
+		return Optional.<DataExchangeTransport>of(new OlingoDataExchangeTransport(client.get()));
+	}
+
+	/** Read the connection settings and build the context of the session.
+	 * @return the context properties as named by the Data Exchange API.
+	 */
+	private Map<String, String> initializeContext() {
+		readConnectionSettings();
+
+		// prefer the user's custom settings over the defaults.
+		final Map<String, String> context = new LinkedHashMap<>();
+		context.put("Software", getSetting(OPT_SOFTWARE, getSoftware()));
+		context.put("Os", getSetting(OPT_OS, getOS()));
+		context.put("Hardware", getSetting(OPT_HARDWARE, getHardware()));
+		context.put("InstanceId", instanceID);
+		context.put("Location", getSetting(OPT_LOCATION, getLocation()));
+		context.put("Script", getScriptName());
+		return context;
+	}
+
+	private void readConnectionSettings() {
+		dataExchangeAPIURL = getSetting(OPT_DATA_EXCHANGE_URL, dataExchangeAPIURL);
+		dataExchangeAPIKey = getSetting(OPT_API_KEY, "");
+		instanceID = getSetting(OPT_INSTANCE_ID, getDefaultInstanceID());
+	}
+
     private Optional<DataExchangeAPIClient> initializeDataExchangeAPIClient() {
         if (!isEnabled()) {
             return Optional.absent();
         }
+        return initializeDataExchangeAPIClient(initializeContext());
+    }
 
-        dataExchangeAPIURL = getSetting(OPT_DATA_EXCHANGE_URL, dataExchangeAPIURL);
-        dataExchangeAPIKey = getSetting(OPT_API_KEY, "");
+    private Optional<DataExchangeAPIClient> initializeDataExchangeAPIClient(final Map<String, String> contextValues) {
+        if (!isEnabled()) {
+            return Optional.absent();
+        }
 
-        // create a new context and prefer the user's custom settings over the defaults.
+        // create a new context.
         final ContextBuilder cb = new ContextBuilder();
-        cb.software(getSetting(OPT_SOFTWARE, getSoftware()));
-        cb.os(getSetting(OPT_OS, getOS()));
-        cb.hardware(getSetting(OPT_HARDWARE, getHardware()));
-
-        instanceID = getSetting(OPT_INSTANCE_ID, getDefaultInstanceID());
-        cb.instanceId(instanceID);
-
-        cb.location(getSetting(OPT_LOCATION, getLocation()));
-        cb.script(getScriptName());
+        cb.software(contextValues.get("Software"));
+        cb.os(contextValues.get("Os"));
+        cb.hardware(contextValues.get("Hardware"));
+        cb.instanceId(contextValues.get("InstanceId"));
+        cb.location(contextValues.get("Location"));
+        cb.script(contextValues.get("Script"));
 
         final DataExchangeAPIClient client;
         try {
@@ -433,6 +723,21 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
         return Boolean.valueOf("" + actualValue);
     }
 
+    /** @return true if entries should be sent from a background thread. */
+    public static boolean isAsyncEnabled() {
+        return "true".equalsIgnoreCase(getSettingNoDefault(OPT_ASYNC_ENABLED));
+    }
+
+    /** @return true if entries should be written to a local spool before being sent. */
+    public static boolean isSpoolEnabled() {
+        return "true".equalsIgnoreCase(getSettingNoDefault(OPT_SPOOL_ENABLED));
+    }
+
+    /** @return true if entries should be aggregated per path before being sent. */
+    public static boolean isAggregationEnabled() {
+        return "true".equalsIgnoreCase(getSettingNoDefault(OPT_AGGREGATION_ENABLED));
+    }
+
     /**
      * @param key
      * @return
@@ -441,6 +746,24 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
         return getSetting(key, null);
     }
 
+    /**
+     * @param key
+     * @param defaultValue
+     * @return the setting as a number or the default value if it is missing or is not a number.
+     */
+    static long getLongSetting(final String key, final long defaultValue) {
+        final String value = getSettingNoDefault(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            errorMessage("Invalid value for " + key + ": " + value + ". Using default value: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
 	public String getScriptName() {
 		return getSetting(OPT_SCRIPT_NAME, defaultScriptName);
 	}
@@ -451,6 +774,68 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 		return regexToCleanURLs;
 	}
 
+	/** @return the regexToCleanURLs, compiled once. */
+	Pattern getPatternToCleanURLs() {
+		Pattern pattern = patternToCleanURLs;
+		if (pattern == null) {
+			pattern = Pattern.compile(regexToCleanURLs);
+			patternToCleanURLs = pattern;
+		}
+		return pattern;
+	}
+
+	Optional<URLTemplater> getURLTemplater() {
+		return urlTemplater;
+	}
+
+	DriverSession getDriverSession() {
+		return driverSession;
+	}
+
+	/** @return the helper shared by all the proxies of the driver to time calls and send entries. */
+	public ProxySendHelper getProxySendHelper() {
+		return driverSession.getSendHelper(this);
+	}
+
+	/**
+	 * @param navigationTiming false if navigation timing is disabled or was given up for the driver.
+	 * @return the options of page-context.js. Without navigation timing only the collections of the transaction are
+	 * run: the other values are sent with the navigation timing values.
+	 */
+	Map<String, Object> getPageContextScriptOptions(final boolean navigationTiming) {
+		return navigationTiming ? pageContextScriptOptions : transactionTailScriptOptions;
+	}
+
+	/** @return how long to wait for a soft navigation to settle, 0 to not wait. */
+	long getSoftNavigationTimeout() {
+		return softNavigationTimeout;
+	}
+
+	Map<String, Object> getTransactionTailScriptOptions() {
+		return transactionTailScriptOptions;
+	}
+
+	/** @return true if a transaction timer is running. */
+	boolean isTransactionStarted() {
+		return transactionTimer != null;
+	}
+
+	Optional<ResourceTimingAggregator> getResourceTimingAggregator() {
+		return resourceTimingAggregator;
+	}
+
+	Optional<LongTaskAggregator> getLongTaskAggregator() {
+		return longTaskAggregator;
+	}
+
+	PathCache getURLPathCache() {
+		return urlPathCache;
+	}
+
+	PathCache getTitlePathCache() {
+		return titlePathCache;
+	}
+
     /**
      * @return
      */
@@ -600,8 +985,14 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 			transactionName = name;
 			handleTimer();
 			final List<String> timerPath = newPath();
+			if (resourceTimingAggregator.isPresent()) {
+				resourceTimingAggregator.get().start(new ArrayList<>(timerPath));
+			}
 			timerPath.add(TRANSACTION_TIMER_NAME);
-			timerBuilder = TimerBuilder.start(timerPath);
+			if (longTaskAggregator.isPresent()) {
+				longTaskAggregator.get().start(timerPath);
+			}
+			transactionTimer = MonotonicTimer.start(timerPath);
 		}
 	}
 
@@ -621,22 +1012,266 @@ public class SeleniumProxyConfig implements CustomProxyConfig, NLLogger, Transac
 	}
 
 	private void handleTimer(){
-		final TimerBuilder current = timerBuilder;
-		if(current != null && getDataExchangeAPIClient().isPresent()) {
+		final MonotonicTimer current = transactionTimer;
+		if(current != null && getDataExchangeTransport().isPresent()) {
 			try {
-				getDataExchangeAPIClient().get().addEntry(current.stop());
+				final List<com.neotys.rest.dataexchange.model.Entry> entries = new ArrayList<>();
+				entries.add(current.stop());
+				if (longTaskAggregator.isPresent()) {
+					entries.addAll(longTaskAggregator.get().drain(current.getStartTimestamp()));
+				}
+				if (resourceTimingAggregator.isPresent()) {
+					entries.addAll(resourceTimingAggregator.get().drain(current.getStartTimestamp()));
+				}
+				addEntries(entries);
 			} catch (GeneralSecurityException | IOException | URISyntaxException | NeotysAPIException e) {
 				throw new RuntimeException(e);
 			}
 		}
 	}
 
+	/** Send entries to the Data Exchange API, either directly or through the background sender in asynchronous mode.
+	 * In aggregation mode the entries are replaced by periodic summaries.
+	 * @param entries
+	 */
+	void addEntries(final List<com.neotys.rest.dataexchange.model.Entry> entries)
+			throws GeneralSecurityException, IOException, URISyntaxException, NeotysAPIException {
+		final Optional<DataExchangeTransport> client = getDataExchangeTransport();
+		if (!client.isPresent()) {
+			throw new RuntimeException("The Data Exchange transport was not initialized properly.");
+		}
+		List<com.neotys.rest.dataexchange.model.Entry> entriesToSend = entries;
+		if (isAggregationEnabled()) {
+			entriesToSend = getEntryAggregator().aggregate(entries, System.currentTimeMillis());
+		}
+		if (!entriesToSend.isEmpty()) {
+			dispatchEntries(client.get(), entriesToSend);
+		}
+	}
+
+	private static void dispatchEntries(final DataExchangeTransport client, final List<com.neotys.rest.dataexchange.model.Entry> entries)
+			throws GeneralSecurityException, IOException, URISyntaxException, NeotysAPIException {
+		getResultSinkDispatcher().dispatch(entries);
+		if (isSpoolEnabled()) {
+			final Optional<EntrySpool> spool = getEntrySpool(client);
+			if (spool.isPresent()) {
+				spool.get().append(entries);
+				return;
+			}
+		}
+		if (!isAsyncEnabled()) {
+			client.addEntries(entries);
+			return;
+		}
+		getAsyncEntrySender(client).offer(entries);
+	}
+
+	private static Optional<PathCardinalityLimiter> newPathCardinalityLimiter() {
+		final long maxPaths = getLongSetting(OPT_PATH_MAX_COUNT, 0);
+		if (maxPaths <= 0) {
+			return Optional.absent();
+		}
+		return Optional.of(new PathCardinalityLimiter((int) Math.min(Integer.MAX_VALUE, maxPaths)));
+	}
+
+	/**
+	 * @param path
+	 * @param prefixSize the number of leading path elements that are always kept.
+	 * @return the path, or a path ending with "Other" if there are already too many distinct paths.
+	 */
+	static List<String> limitPathCardinality(final List<String> path, final int prefixSize) {
+		if (!PATH_CARDINALITY_LIMITER.isPresent()) {
+			return path;
+		}
+		return PATH_CARDINALITY_LIMITER.get().limit(path, prefixSize);
+	}
+
+	/** Called for every batch of entries sent by any driver, so the lock is only taken to create the dispatcher. */
+	private static ResultSinkDispatcher getResultSinkDispatcher() {
+		final ResultSinkDispatcher existing = resultSinkDispatcher;
+		if (existing != null) {
+			return existing;
+		}
+		synchronized (SeleniumProxyConfig.class) {
+			if (resultSinkDispatcher == null) {
+				final ResultSinkDispatcher dispatcher = new ResultSinkDispatcher(ResultSinkDispatcher.loadSinks(),
+						(int) getLongSetting(OPT_RESULT_SINK_QUEUE_SIZE, AsyncEntrySender.DEFAULT_QUEUE_SIZE),
+						(int) getLongSetting(OPT_ASYNC_BATCH_SIZE, 100),
+						getLongSetting(OPT_ASYNC_LINGER_MS, 500));
+				resultSinkDispatcher = dispatcher;
+				if (dispatcher.hasSinks()) {
+					registerShutdownHook();
+				}
+			}
+			return resultSinkDispatcher;
+		}
+	}
+
+	private static synchronized EntryAggregator getEntryAggregator() {
+		if (entryAggregator == null) {
+			final long windowMillis = getLongSetting(OPT_AGGREGATION_WINDOW_MS, 60000);
+			final EntryAggregator aggregator = new EntryAggregator(windowMillis,
+					EntryAggregator.parsePercentiles(getSetting(OPT_AGGREGATION_PERCENTILES, "50,90,95,99")));
+			entryAggregator = aggregator;
+
+			// windows of paths that are not used anymore are closed too.
+			final ScheduledExecutorService windowCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "NeoLoad-Aggregation-Window");
+				thread.setDaemon(true);
+				return thread;
+			});
+			final long periodMillis = Math.max(1, Math.min(windowMillis, 1000));
+			windowCloser.scheduleWithFixedDelay(() -> sendSummaries(aggregator.closeExpired(System.currentTimeMillis())),
+					periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+			registerShutdownHook();
+		}
+		return entryAggregator;
+	}
+
+	private static synchronized Optional<EntrySpool> getEntrySpool(final DataExchangeTransport client) {
+		if (entrySpool == null) {
+			final String directory = getSetting(OPT_SPOOL_DIRECTORY,
+					Paths.get(System.getProperty("java.io.tmpdir"), "neoload-selenium-spool").toString());
+			try {
+				final EntrySpool spool = new EntrySpool(Paths.get(directory),
+						(int) getLongSetting(OPT_SPOOL_SEGMENT_SIZE, 4 * 1024 * 1024),
+						(int) getLongSetting(OPT_SPOOL_MAX_SEGMENTS, 32));
+				spool.start(client, (int) getLongSetting(OPT_ASYNC_BATCH_SIZE, 100));
+				debugMessage("Spooling entries to " + directory);
+				entrySpool = Optional.of(spool);
+				registerShutdownHook();
+			} catch (final IOException e) {
+				errorMessage("Cannot use the spool directory " + directory + ", entries are sent directly: " + e);
+				entrySpool = Optional.absent();
+			}
+		}
+		return entrySpool;
+	}
+
+	private static synchronized AsyncEntrySender getAsyncEntrySender(final DataExchangeTransport client) {
+		if (asyncEntrySender == null) {
+			asyncEntrySender = new AsyncEntrySender(client,
+					(int) getLongSetting(OPT_ASYNC_QUEUE_SIZE, AsyncEntrySender.DEFAULT_QUEUE_SIZE),
+					(int) getLongSetting(OPT_ASYNC_BATCH_SIZE, 100),
+					getLongSetting(OPT_ASYNC_LINGER_MS, 500));
+			registerShutdownHook();
+		}
+		return asyncEntrySender;
+	}
+
+	/** One hook for everything, since hooks run concurrently and the summaries must be sent before the senders close. */
+	private static synchronized void registerShutdownHook() {
+		if (!shutdownHookRegistered) {
+			Runtime.getRuntime().addShutdownHook(new Thread(SeleniumProxyConfig::closeEntries, "NeoLoad-DataExchange-Flush"));
+			shutdownHookRegistered = true;
+		}
+	}
+
+	/** Send the pending summaries, then send what is queued and stop the background threads. Called when the JVM exits. */
+	private static void closeEntries() {
+		final EntryAggregator aggregator;
+		final AsyncEntrySender sender;
+		final ResultSinkDispatcher dispatcher;
+		final Optional<EntrySpool> spool;
+		synchronized (SeleniumProxyConfig.class) {
+			aggregator = entryAggregator;
+			sender = asyncEntrySender;
+			dispatcher = resultSinkDispatcher;
+			spool = entrySpool;
+		}
+		if (aggregator != null) {
+			sendSummaries(aggregator.drain());
+		}
+		if (sender != null) {
+			sender.close(getFlushTimeout());
+		}
+		if (dispatcher != null) {
+			dispatcher.close(getFlushTimeout());
+		}
+		if (spool != null && spool.isPresent()) {
+			spool.get().close(getFlushTimeout());
+		}
+	}
+
+	/**
+	 * @param summaries of the aggregator, sent like any other entries.
+	 */
+	private static void sendSummaries(final List<com.neotys.rest.dataexchange.model.Entry> summaries) {
+		final Optional<DataExchangeTransport> client;
+		synchronized (SeleniumProxyConfig.class) {
+			client = dataExchangeTransport;
+		}
+		if (summaries.isEmpty() || client == null || !client.isPresent()) {
+			return;
+		}
+		try {
+			dispatchEntries(client.get(), summaries);
+		} catch (final GeneralSecurityException | IOException | URISyntaxException | NeotysAPIException | RuntimeException e) {
+			errorMessage("Issue sending " + summaries.size() + " aggregated entries: " + e);
+		}
+	}
+
+	/**
+	 * @param sender replaces the background sender, null to create it again when needed.
+	 * @return the previous background sender.
+	 */
+	@VisibleForTesting
+	static synchronized AsyncEntrySender setAsyncEntrySender(final AsyncEntrySender sender) {
+		final AsyncEntrySender previous = asyncEntrySender;
+		asyncEntrySender = sender;
+		return previous;
+	}
+
+	/** Send the pending aggregated summaries and wait for the entries queued in asynchronous or spool mode, and for the
+	 * result sinks, to be sent.
+	 * Called when the driver quits. */
+	public static void flushEntries() {
+		final AsyncEntrySender sender;
+		final EntryAggregator aggregator;
+		synchronized (SeleniumProxyConfig.class) {
+			sender = asyncEntrySender;
+			aggregator = entryAggregator;
+		}
+		if (aggregator != null) {
+			sendSummaries(aggregator.drain());
+		}
+		if (sender != null && !sender.flush(getFlushTimeout())) {
+			errorMessage("Timed out while waiting for entries to be sent to the Data Exchange API.");
+		}
+		final Optional<EntrySpool> spool;
+		final ResultSinkDispatcher dispatcher;
+		synchronized (SeleniumProxyConfig.class) {
+			spool = entrySpool;
+			dispatcher = resultSinkDispatcher;
+		}
+		if (PATH_CARDINALITY_LIMITER.isPresent() && PATH_CARDINALITY_LIMITER.get().getFoldedCount() > 0) {
+			errorMessage(PATH_CARDINALITY_LIMITER.get().getFoldedCount() + " entries were sent as "
+					+ PathCardinalityLimiter.OTHER_NAME + " because there were too many distinct paths.");
+		}
+		if (dispatcher != null && !dispatcher.flush(getFlushTimeout())) {
+			errorMessage("Timed out while waiting for entries to be sent to the result sinks.");
+		}
+		if (spool != null && spool.isPresent() && !spool.get().flush(getFlushTimeout())) {
+			errorMessage("Timed out while waiting for spooled entries to be sent, they are kept on disk for the next run.");
+		}
+	}
+
+	private static long getFlushTimeout() {
+		return getLongSetting(OPT_ASYNC_FLUSH_TIMEOUT_MS, 30000);
+	}
+
 	@Override
 	public void stopTransaction() {
 		if(END_USER_EXPERIENCE.equals(ModeHelper.getMode())) {
 			handleTimer();
+			if (resourceTimingAggregator.isPresent()) {
+				resourceTimingAggregator.get().stop();
+			}
+			if (longTaskAggregator.isPresent()) {
+				longTaskAggregator.get().stop();
+			}
 			transactionName = null;
-			timerBuilder = null;
+			transactionTimer = null;
 		}
 	}
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Replaces the variable parts of a URL path by placeholders so that /order/8123/items/55 and /order/9/items/7 both
+ * become /order/{id}/items/{id} and are reported as one path.
+ * <p>
+ * User route templates such as /order/{orderId}/items/{itemId} are tried first: a segment in braces matches any
+ * segment, other segments must be equal. Then each segment is checked by the built-in detectors for numbers
+ * ({@value #ID}), UUIDs ({@value #UUID}) and hexadecimal hashes ({@value #HASH}). Detectors scan characters without
+ * regular expressions since this runs for every new URL.
+ */
+class URLTemplater {
+
+	static final String ID = "{id}";
+	static final String UUID = "{uuid}";
+	static final String HASH = "{hash}";
+
+	/** Shorter hexadecimal strings are more likely to be words such as "cafe" or "deadbeef". */
+	private static final int MIN_HASH_LENGTH = 16;
+
+	private static final int UUID_LENGTH = 36;
+
+	/** Each template split on slashes, with the template itself as the last element. */
+	private final List<String[]> templates = new ArrayList<>();
+
+	private final boolean detectorsEnabled;
+
+	/**
+	 * @param templates comma separated route templates, may be empty.
+	 * @param detectorsEnabled
+	 */
+	URLTemplater(final String templates, final boolean detectorsEnabled) {
+		this.detectorsEnabled = detectorsEnabled;
+		for (final String template: templates.split(",")) {
+			final String trimmed = template.trim();
+			if (!trimmed.isEmpty()) {
+				this.templates.add(trimmed.split("/", -1));
+			}
+		}
+	}
+
+	/**
+	 * @param path a cleaned URL path such as /order/8123/items/55.
+	 * @return the matching template, or the path with the detected segments replaced.
+	 */
+	String apply(final String path) {
+		final String[] segments = path.split("/", -1);
+		for (final String[] template: templates) {
+			if (matches(template, segments)) {
+				return String.join("/", template);
+			}
+		}
+		if (!detectorsEnabled) {
+			return path;
+		}
+		boolean changed = false;
+		for (int i = 0; i < segments.length; i++) {
+			final String placeholder = detect(segments[i]);
+			if (placeholder != null) {
+				segments[i] = placeholder;
+				changed = true;
+			}
+		}
+		return changed ? String.join("/", segments) : path;
+	}
+
+	private static boolean matches(final String[] template, final String[] segments) {
+		if (template.length != segments.length) {
+			return false;
+		}
+		for (int i = 0; i < template.length; i++) {
+			final String templateSegment = template[i];
+			if (isPlaceholder(templateSegment)) {
+				if (segments[i].isEmpty()) {
+					return false;
+				}
+			} else if (!templateSegment.equals(segments[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPlaceholder(final String segment) {
+		return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+	}
+
+	/**
+	 * @param segment
+	 * @return the placeholder for the segment, or null if it is not variable.
+	 */
+	static String detect(final String segment) {
+		final int length = segment.length();
+		if (length == 0) {
+			return null;
+		}
+		boolean allDigits = true;
+		boolean allHex = true;
+		boolean hasDigit = false;
+		for (int i = 0; i < length; i++) {
+			final char c = segment.charAt(i);
+			final boolean digit = c >= '0' && c <= '9';
+			hasDigit |= digit;
+			allDigits &= digit;
+			allHex &= digit || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+		}
+		if (allDigits) {
+			return ID;
+		}
+		if (allHex && hasDigit && length >= MIN_HASH_LENGTH) {
+			return HASH;
+		}
+		if (length == UUID_LENGTH && isUUID(segment)) {
+			return UUID;
+		}
+		return null;
+	}
+
+	private static boolean isUUID(final String segment) {
+		for (int i = 0; i < UUID_LENGTH; i++) {
+			final char c = segment.charAt(i);
+			if (i == 8 || i == 13 || i == 18 || i == 23) {
+				if (c != '-') {
+					return false;
+				}
+			} else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
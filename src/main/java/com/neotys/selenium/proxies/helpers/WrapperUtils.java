@@ -37,7 +37,14 @@ import org.openqa.selenium.interactions.Keyboard;
 import org.openqa.selenium.interactions.Mouse;
 import org.openqa.selenium.remote.RemoteWebElement;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author ajohnson
@@ -48,6 +55,18 @@ public class WrapperUtils {
     /** Config settings. */
     private final SeleniumProxyConfig proxyConfig;
 
+    /** Shared by the element wrappers of the last driver seen, replaced if another driver is given. */
+    private volatile DriverContext driverContext;
+
+    /** Key: the class of the wrapped object, value: the proxy class constructor per proxied interface. */
+    private static final ClassValue<ConcurrentMap<Class<?>, Constructor<?>>> PROXY_CONSTRUCTORS =
+            new ClassValue<ConcurrentMap<Class<?>, Constructor<?>>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, Constructor<?>> computeValue(final Class<?> concreteClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /** Constructor.
      * @param proxyConfig
      */
@@ -78,7 +97,7 @@ public class WrapperUtils {
             return (T)WebDriverProxy.newEueInstance(webDriver);
 
         } else if (instanceToWrap instanceof RemoteWebElement) {
-        	return (T)new RemoteWebElementWrapper(webDriver, (RemoteWebElement) instanceToWrap, proxyConfig);
+        	return (T)new RemoteWebElementWrapper((RemoteWebElement) instanceToWrap, getDriverContext(webDriver));
 
         } else if (instanceToWrap instanceof WebElement) {
             return (T)new WebElementProxy(webDriver, (WebElement) instanceToWrap, proxyConfig).getProxy();
@@ -86,26 +105,28 @@ public class WrapperUtils {
         } else if (instanceToWrap instanceof Options) {
             return (T)new OptionsProxy(webDriver, (Options) instanceToWrap, proxyConfig).getProxy();
             
-        } else if (instanceToWrap instanceof List) {
-            List<Object> newInstance;
-            try {
-                newInstance = (List<Object>) instanceToWrap.getClass().newInstance();
-            } catch (InstantiationException | IllegalAccessException e) {
-                // the only known return type of list at the time of this writing is an ArrayList
-                newInstance = new ArrayList<>();
-            }
-
-            for (final Object obj: (List<?>)instanceToWrap) {
-                final Object wrappedObject = wrapIfNecessary(webDriver, obj);
-                newInstance.add(wrappedObject);
-            }
-
-            return (T)newInstance;
+        } else if (instanceToWrap instanceof List && !(instanceToWrap instanceof LazyWrappingList)
+                && !((List<?>) instanceToWrap).isEmpty()) {
+            // elements are wrapped when they are read, most scripts only use a few of them.
+            return (T)new LazyWrappingList(webDriver, this, (List<?>) instanceToWrap);
         }
         
         return (T)instanceToWrap;
     }
 
+    /**
+     * @param webDriver
+     * @return the context of the driver, created once per driver.
+     */
+    public DriverContext getDriverContext(final WebDriver webDriver) {
+        DriverContext context = driverContext;
+        if (context == null || context.getWebDriver() != webDriver) {
+            context = new DriverContext(webDriver, proxyConfig, this);
+            driverContext = context;
+        }
+        return context;
+    }
+
 	/** Ignore exceptions when getting the current URL. For use with Selendroid.
 	 * @param webDriver
 	 * @return
@@ -162,4 +183,29 @@ public class WrapperUtils {
         
         return interfacesToUse.toArray(new Class<?>[0]);
     }
+
+    /** Same as {@link Proxy#newProxyInstance(ClassLoader, Class[], InvocationHandler)} with the interfaces of the original
+     * object, but the proxy class is only generated and looked up once per class of original object.
+     * @param type the interface to proxy.
+     * @param original the object whose interfaces are all proxied.
+     * @param invocationHandler
+     * @return the proxy.
+     */
+    public static <T> T newProxy(final Class<T> type, final Object original, final InvocationHandler invocationHandler) {
+        final ConcurrentMap<Class<?>, Constructor<?>> constructors = PROXY_CONSTRUCTORS.get(original.getClass());
+        Constructor<?> constructor = constructors.get(type);
+        try {
+            if (constructor == null) {
+                final Class<?> proxyClass = Proxy.getProxyClass(type.getClassLoader(), getInterfacesUsed(original.getClass(), type));
+                constructor = proxyClass.getConstructor(InvocationHandler.class);
+                if (!Modifier.isPublic(proxyClass.getModifiers())) {
+                    constructor.setAccessible(true);
+                }
+                constructors.putIfAbsent(type, constructor);
+            }
+            return type.cast(constructor.newInstance(invocationHandler));
+        } catch (final NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create a proxy of " + original.getClass(), e);
+        }
+    }
 }
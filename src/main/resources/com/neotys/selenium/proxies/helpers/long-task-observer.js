@@ -0,0 +1,20 @@
+// Observes the long tasks of the main thread into window.__neoloadLongTasks, read and reset by page-context.js.
+// Added to every new document where the driver allows it, so the tasks of the page load are counted. page-context.js
+// also runs it, as the body of installLongTaskObserver(), for the pages it was not added to.
+if (!window.__neoloadLongTasks && window.PerformanceObserver) {
+	var neoloadLongTasks = window.__neoloadLongTasks = {count: 0, blockingTime: 0, longest: 0};
+	try {
+		new PerformanceObserver(function (list) {
+			var tasks = list.getEntries();
+			for (var i = 0; i < tasks.length; i++) {
+				neoloadLongTasks.count++;
+				// the main thread is considered blocked past 50 ms.
+				neoloadLongTasks.blockingTime += Math.max(0, tasks[i].duration - 50);
+				neoloadLongTasks.longest = Math.max(neoloadLongTasks.longest, tasks[i].duration);
+			}
+		}).observe({type: 'longtask', buffered: true});
+	} catch (e) {
+		// not supported by this browser.
+		neoloadLongTasks.unsupported = true;
+	}
+}
@@ -0,0 +1,263 @@
+// Collects the page context after a timed action in a single WebDriver round trip.
+// Read by com.neotys.selenium.proxies.helpers.PageContext. The returned object is converted to a map by the driver.
+// arguments[0] is an optional object with the options of the collections that are not always done.
+// installLongTaskObserver() is defined by PageContext with the content of long-task-observer.js.
+var options = arguments[0] || {};
+// the browser clock, compared with the JVM clock around the round trip to estimate their offset.
+var result = {now: Date.now()};
+try {
+	// like WebDriver.getCurrentUrl() and getTitle(), describe the top level page even from a frame.
+	result.url = window.top.location.href;
+	result.title = window.top.document.title;
+} catch (e) {
+	// a frame from another origin cannot see the top level page.
+	result.url = window.location.href;
+	result.title = document.title;
+}
+var performance = window.performance;
+// Navigation timing, paint timing and web vitals, when options.navigationTiming is set. Without it the script only reads
+// the URL and title and leaves no observer in the page.
+if (options.navigationTiming) {
+	if (performance && performance.timing) {
+		var timing = performance.timing;
+		// identifies the navigation, so its values are only sent once.
+		result.timeOrigin = performance.timeOrigin || timing.navigationStart;
+		result.timing = {
+			redirectStart: timing.redirectStart,
+			fetchStart: timing.fetchStart,
+			responseStart: timing.responseStart,
+			domContentLoadedEventStart: timing.domContentLoadedEventStart,
+			loadEventStart: timing.loadEventStart,
+			loadEventEnd: timing.loadEventEnd
+		};
+	}
+
+	// Navigation Timing Level 2 and paint timing, relative to the start of the navigation.
+	var metrics = {};
+	if (performance && performance.getEntriesByType) {
+		var navigation = performance.getEntriesByType('navigation')[0];
+		if (navigation) {
+			metrics.dns = navigation.domainLookupEnd - navigation.domainLookupStart;
+			metrics.tcp = navigation.connectEnd - navigation.connectStart;
+			if (navigation.secureConnectionStart > 0) {
+				metrics.tls = navigation.connectEnd - navigation.secureConnectionStart;
+			}
+			if (typeof navigation.transferSize === 'number') {
+				metrics.transferSize = navigation.transferSize;
+			}
+		}
+		var paints = performance.getEntriesByType('paint');
+		for (var i = 0; i < paints.length; i++) {
+			if (paints[i].name === 'first-paint') {
+				metrics.firstPaint = paints[i].startTime;
+			} else if (paints[i].name === 'first-contentful-paint') {
+				metrics.firstContentfulPaint = paints[i].startTime;
+			}
+		}
+	}
+
+	// largest contentful paint and layout shifts are only available to observers. They are installed once per page and
+	// report the buffered entries asynchronously, so the values show up from the next action on the same page. Both keep
+	// growing while the page is used, and each new value is sent.
+	if (window.PerformanceObserver) {
+		var vitals = window.__neoloadVitals;
+		var observing = !!vitals;
+		if (!vitals) {
+			vitals = window.__neoloadVitals = {};
+			try {
+				new PerformanceObserver(function (list) {
+					var entries = list.getEntries();
+					var last = entries[entries.length - 1];
+					vitals.largestContentfulPaint = last.renderTime || last.loadTime || last.startTime;
+				}).observe({type: 'largest-contentful-paint', buffered: true});
+			} catch (e) {
+				// not supported by this browser.
+			}
+			try {
+				new PerformanceObserver(function (list) {
+					var entries = list.getEntries();
+					for (var j = 0; j < entries.length; j++) {
+						// shifts caused by the user are expected.
+						if (!entries[j].hadRecentInput) {
+							vitals.cumulativeLayoutShift = (vitals.cumulativeLayoutShift || 0) + entries[j].value;
+						}
+					}
+				}).observe({type: 'layout-shift', buffered: true});
+				vitals.layoutShiftObserved = true;
+			} catch (e) {
+				// not supported by this browser.
+			}
+		}
+		if (typeof vitals.largestContentfulPaint === 'number') {
+			metrics.largestContentfulPaint = vitals.largestContentfulPaint;
+		}
+		if (observing && vitals.layoutShiftObserved) {
+			// the buffered shifts were reported since the previous call, none means a stable page.
+			metrics.cumulativeLayoutShift = vitals.cumulativeLayoutShift || 0;
+		}
+	}
+	result.metrics = metrics;
+}
+
+// Resource timing, only when options.slowestResources is the number of slowest resources to return. The resources are
+// read from a cursor so each one is read once, then the buffer is cleared so it never fills up during a long scenario.
+var slowestCount = options.slowestResources;
+if (typeof slowestCount === 'number' && slowestCount >= 0 && performance && performance.getEntriesByType) {
+	var resources = performance.getEntriesByType('resource');
+	var cursor = window.__neoloadResourceCursor || 0;
+	if (cursor > resources.length) {
+		// the page cleared the buffer itself.
+		cursor = 0;
+	}
+	var types = {};
+	var slowest = [];
+	for (var k = cursor; k < resources.length; k++) {
+		var resource = resources[k];
+		var type = resource.initiatorType || 'other';
+		var totals = types[type] || (types[type] = {count: 0, transferSize: 0, blockedTime: 0});
+		totals.count++;
+		totals.transferSize += resource.transferSize || 0;
+		// requestStart is 0 for cross-origin resources without Timing-Allow-Origin.
+		if (resource.requestStart > 0) {
+			totals.blockedTime += Math.max(0, resource.requestStart - resource.fetchStart
+				- (resource.domainLookupEnd - resource.domainLookupStart) - (resource.connectEnd - resource.connectStart));
+		}
+		if (slowestCount > 0 && (slowest.length < slowestCount || resource.duration > slowest[slowest.length - 1].duration)) {
+			var index = slowest.length;
+			while (index > 0 && slowest[index - 1].duration < resource.duration) {
+				index--;
+			}
+			slowest.splice(index, 0, {url: resource.name, duration: resource.duration});
+			if (slowest.length > slowestCount) {
+				slowest.pop();
+			}
+		}
+	}
+	if (performance.clearResourceTimings) {
+		performance.clearResourceTimings();
+		cursor = 0;
+	} else {
+		cursor = resources.length;
+	}
+	window.__neoloadResourceCursor = cursor;
+	result.resources = {types: types, slowest: slowest};
+}
+
+// The JS heap (Chrome only) and the number of DOM nodes, when options.samples is set. Sampled at each call so a leak
+// shows up as a trend next to the durations.
+if (options.samples) {
+	var samples = {};
+	if (performance && performance.memory) {
+		samples.jsHeapUsed = performance.memory.usedJSHeapSize;
+	}
+	samples.domNodes = document.getElementsByTagName('*').length;
+	result.samples = samples;
+}
+
+// Long tasks of the main thread, when options.longTasks is set. The observer is installed when the document starts where
+// the driver allows it, otherwise here on the first call for the page, and the totals are returned and reset by each call.
+if (options.longTasks && window.PerformanceObserver) {
+	installLongTaskObserver();
+	var longTasks = window.__neoloadLongTasks;
+	if (!longTasks.unsupported) {
+		result.longTasks = {count: longTasks.count, blockingTime: longTasks.blockingTime, longest: longTasks.longest};
+		longTasks.count = 0;
+		longTasks.blockingTime = 0;
+		longTasks.longest = 0;
+	}
+}
+
+// Soft navigations of single-page applications, when options.softNavigation is set: route changes done through the
+// History API or the hash. The hooks are installed once per page. A soft navigation has settled when no fetch or
+// XMLHttpRequest is pending and the DOM did not change for a while. Its duration ends with the last DOM change or
+// request. When a soft navigation is still running, softNavigationPending is returned and PageContext waits for it with
+// soft-navigation-wait.js, so that it is sent with the action that triggered it. If it does not settle in time it is
+// marked late and returned once, by the first call after it settled.
+if (options.softNavigation) {
+	var now = function () {
+		return performance && performance.now ? performance.now() : new Date().getTime();
+	};
+	var soft = window.__neoloadSoftNavigation;
+	if (!soft) {
+		soft = window.__neoloadSoftNavigation = {start: -1, lastActivity: 0, pending: 0, late: false};
+		// returns the duration of the soft navigation once it settled, and forgets it.
+		soft.take = function () {
+			if (soft.start < 0) {
+				return null;
+			}
+			if (soft.pending <= 0 && now() - soft.lastActivity >= 250) {
+				var duration = soft.lastActivity - soft.start;
+				soft.start = -1;
+				return duration;
+			}
+			if (now() - soft.start > 60000) {
+				// never settled, for example because of polling.
+				soft.start = -1;
+			}
+			return null;
+		};
+		var activity = function () {
+			soft.lastActivity = now();
+		};
+		var startSoftNavigation = function () {
+			soft.start = now();
+			soft.lastActivity = soft.start;
+			soft.late = false;
+		};
+		var pushState = history.pushState;
+		history.pushState = function () {
+			var returned = pushState.apply(this, arguments);
+			startSoftNavigation();
+			return returned;
+		};
+		window.addEventListener('popstate', startSoftNavigation);
+		window.addEventListener('hashchange', startSoftNavigation);
+		if (window.MutationObserver && document.documentElement) {
+			// attributes are left out: animations change them all the time.
+			new MutationObserver(activity).observe(document.documentElement, {childList: true, subtree: true, characterData: true});
+		}
+		if (window.fetch) {
+			var fetch = window.fetch;
+			window.fetch = function () {
+				var promise = fetch.apply(this, arguments);
+				soft.pending++;
+				var done = function () {
+					soft.pending--;
+					activity();
+				};
+				promise.then(done, done);
+				return promise;
+			};
+		}
+		if (window.XMLHttpRequest) {
+			var send = XMLHttpRequest.prototype.send;
+			XMLHttpRequest.prototype.send = function () {
+				// counted and listened to before sending: a synchronous request ends within send.
+				var finished = false;
+				var done = function () {
+					if (!finished) {
+						finished = true;
+						soft.pending--;
+						activity();
+					}
+				};
+				soft.pending++;
+				this.addEventListener('loadend', done);
+				try {
+					return send.apply(this, arguments);
+				} catch (e) {
+					// not sent, or a synchronous request that failed without loadend.
+					done();
+					throw e;
+				}
+			};
+		}
+	}
+	var softNavigation = soft.take();
+	if (softNavigation !== null) {
+		result.softNavigation = softNavigation;
+	} else if (soft.start >= 0 && !soft.late) {
+		result.softNavigationPending = true;
+	}
+}
+return result;
@@ -0,0 +1,20 @@
+// Waits for the soft navigation started by the last action to settle, so that it is sent with that action. Run with
+// executeAsyncScript by PageContext when page-context.js returned softNavigationPending.
+// arguments[0] is the timeout in milliseconds, the last argument is the callback of the driver. The result is the
+// duration of the soft navigation, or null if there is none or it did not settle in time. It is then marked late and
+// returned by the first call of page-context.js after it settled.
+var callback = arguments[arguments.length - 1];
+var soft = window.__neoloadSoftNavigation;
+var deadline = new Date().getTime() + arguments[0];
+var poll = function () {
+	var duration = soft ? soft.take() : null;
+	if (duration !== null || !soft || soft.start < 0) {
+		callback(duration);
+	} else if (new Date().getTime() >= deadline) {
+		soft.late = true;
+		callback(null);
+	} else {
+		setTimeout(poll, 50);
+	}
+};
+poll();
@@ -27,6 +27,7 @@
  */
 package com.neotys.selenium.proxies;
 
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -45,4 +46,15 @@ public class RemoteWebElementWrapperTest {
 		assertTrue("should be an instance of RemoteWebElement", wrapped instanceof RemoteWebElement);
 	}
 
+	/** Elements of the same driver only differ by the original element. */
+	@Test
+	public void testContextShared() {
+		final WrapperUtils wrapperUtils = new WrapperUtils(null);
+		final RemoteWebElementWrapper first = wrapperUtils.wrapIfNecessary(null, new RemoteWebElement());
+		final RemoteWebElementWrapper second = wrapperUtils.wrapIfNecessary(null, new RemoteWebElement());
+
+		assertSame(first.context, second.context);
+		assertSame(wrapperUtils, first.context.getWrapperUtils());
+	}
+
 }
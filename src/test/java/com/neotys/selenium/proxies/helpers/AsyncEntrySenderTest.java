@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+public class AsyncEntrySenderTest {
+
+    /** Keeps the size of each batch it receives. */
+    private static class RecordingTransport implements DataExchangeTransport {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final List<Entry> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void addEntries(final List<Entry> entries) {
+            batchSizes.add(entries.size());
+            received.addAll(entries);
+        }
+
+        void awaitReceived(final int count, final long timeoutMillis) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (received.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private static AsyncEntrySender newSender(final DataExchangeTransport transport, final int queueSize, final int batchSize,
+            final long lingerMillis) {
+        return new AsyncEntrySender(transport, "test", "test-sender", "queue.size", queueSize, batchSize, lingerMillis);
+    }
+
+    /** A full batch is sent without waiting for the linger time. */
+    @Test
+    public void testBatchSize() throws InterruptedException {
+        final RecordingTransport transport = new RecordingTransport();
+        final AsyncEntrySender sender = newSender(transport, 100, 2, 60000);
+        try {
+            sender.offer(TestEntries.newEntries(4));
+            transport.awaitReceived(4, 5000);
+
+            assertEquals(Arrays.asList(2, 2), transport.batchSizes);
+        } finally {
+            sender.close(0);
+        }
+    }
+
+    /** A batch that does not fill up is sent once the linger time is over. */
+    @Test
+    public void testLinger() throws InterruptedException {
+        final RecordingTransport transport = new RecordingTransport();
+        final AsyncEntrySender sender = newSender(transport, 100, 100, 200);
+        try {
+            final long start = System.nanoTime();
+            sender.offer(TestEntries.newEntries(3));
+            transport.awaitReceived(3, 5000);
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(Collections.singletonList(3), transport.batchSizes);
+            assertTrue("Sent after " + elapsedMillis + " ms.", elapsedMillis >= 150);
+        } finally {
+            sender.close(0);
+        }
+    }
+
+    /** Entries that do not fit in the queue are dropped and counted, the others are still sent. */
+    @Test
+    public void testQueueFull() throws InterruptedException {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingTransport transport = new RecordingTransport() {
+            @Override
+            public void addEntries(final List<Entry> entries) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.addEntries(entries);
+            }
+        };
+        final AsyncEntrySender sender = newSender(transport, 2, 1, 0);
+        try {
+            sender.offer(TestEntries.newEntries(1));
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            // the sender is busy: 2 entries fit in the queue, 3 are dropped.
+            sender.offer(TestEntries.newEntries(5));
+            assertEquals(3, sender.getDroppedCount());
+
+            release.countDown();
+            assertTrue(sender.flush(5000));
+            assertEquals(3, transport.received.size());
+        } finally {
+            release.countDown();
+            sender.close(0);
+        }
+    }
+
+    /** An invalid queue size falls back to the default instead of failing the first action of the script. */
+    @Test
+    public void testInvalidQueueSize() {
+        final RecordingTransport transport = new RecordingTransport();
+        final AsyncEntrySender sender = newSender(transport, 0, 10, 0);
+        try {
+            sender.offer(TestEntries.newEntries(3));
+            assertTrue(sender.flush(5000));
+            assertEquals(3, transport.received.size());
+            assertEquals(0, sender.getDroppedCount());
+        } finally {
+            sender.close(0);
+        }
+    }
+
+    /** flushEntries() waits until everything queued has been sent. */
+    @Test
+    public void testFlushEntries() {
+        final RecordingTransport transport = new RecordingTransport();
+        final AsyncEntrySender sender = newSender(transport, 100, 3, 200);
+        final AsyncEntrySender previous = SeleniumProxyConfig.setAsyncEntrySender(sender);
+        try {
+            sender.offer(TestEntries.newEntries(10));
+            SeleniumProxyConfig.flushEntries();
+
+            assertEquals(10, transport.received.size());
+        } finally {
+            SeleniumProxyConfig.setAsyncEntrySender(previous);
+            sender.close(0);
+        }
+    }
+
+    /** Quitting the driver sends what is still queued before quit() returns. */
+    @Test
+    public void testFlushOnQuit() throws Exception {
+        final RecordingTransport transport = new RecordingTransport();
+        final AsyncEntrySender sender = newSender(transport, 100, 100, 500);
+        final AsyncEntrySender previous = SeleniumProxyConfig.setAsyncEntrySender(sender);
+        try {
+            final WebDriver driver = (WebDriver) Proxy.newProxyInstance(AsyncEntrySenderTest.class.getClassLoader(),
+                    new Class<?>[] {WebDriver.class}, (proxy, method, args) -> null);
+            final InstrumentationPolicy policy = InstrumentationPolicy.create("test.quit", Collections.<String> emptyList(),
+                    Collections.<String> emptyList(), Collections.<String> emptyList());
+            sender.offer(TestEntries.newEntries(5));
+
+            new ProxySendHelper(new SeleniumProxyConfig("any")).sendAndReturn(policy, driver, driver,
+                    WebDriver.class.getMethod("quit"), null);
+
+            // without the flush nothing would have been sent yet.
+            assertEquals(5, transport.received.size());
+        } finally {
+            SeleniumProxyConfig.setAsyncEntrySender(previous);
+            sender.close(0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClockOffsetEstimatorTest {
+
+    /** The browser time is assumed to be read at the midpoint of the round trip. */
+    @Test
+    public void testOffset() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(60000);
+        assertFalse(estimator.isEstimated());
+
+        // the browser is 300 ms ahead.
+        estimator.record(10000, 10020, 10310);
+
+        assertTrue(estimator.isEstimated());
+        assertEquals(300d, estimator.getOffset(), 0);
+        assertEquals(20000L, estimator.toJVMTime(20300));
+    }
+
+    /** Within an estimate the sample with the shortest round trip is kept. */
+    @Test
+    public void testShortestRoundTrip() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(60000);
+        estimator.record(10000, 10100, 10350);
+        assertEquals(300d, estimator.getOffset(), 0);
+
+        estimator.record(11000, 11010, 11305);
+        assertEquals(300d, estimator.getOffset(), 0);
+
+        // a slower round trip is less accurate.
+        estimator.record(12000, 12400, 12000);
+        assertEquals(300d, estimator.getOffset(), 0);
+    }
+
+    /** After a while a new estimate is started to follow the drift of the clocks. */
+    @Test
+    public void testRefresh() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(60000);
+        estimator.record(10000, 10010, 10305);
+        // improving the estimate does not delay the refresh.
+        estimator.record(20000, 20002, 20301);
+
+        estimator.record(70020, 70100, 70260);
+
+        assertEquals(200d, estimator.getOffset(), 0);
+    }
+
+    /** A round trip during which the JVM clock went back is ignored. */
+    @Test
+    public void testClockAdjusted() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(60000);
+        estimator.record(10000, 9000, 10000);
+        assertFalse(estimator.isEstimated());
+    }
+}
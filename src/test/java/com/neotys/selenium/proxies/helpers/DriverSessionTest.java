@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class DriverSessionTest {
+
+    private static Map<String, Long> newValues(final String... labels) {
+        final Map<String, Long> values = new LinkedHashMap<>();
+        for (final String label: labels) {
+            values.put(label, 100L);
+        }
+        return values;
+    }
+
+    /** The values of a navigation are sent once, values that show up later or change are still sent. */
+    @Test
+    public void testRemoveSent() {
+        final DriverSession driverSession = new DriverSession();
+        final Double timeOrigin = 1500000000000.25d;
+
+        assertEquals(newValues("On Load", "First Paint"), driverSession.removeSent(timeOrigin, newValues("On Load", "First Paint")));
+        assertTrue(driverSession.removeSent(timeOrigin, newValues("On Load", "First Paint")).isEmpty());
+        assertEquals(Arrays.asList("Largest Contentful Paint"), Arrays.asList(driverSession.removeSent(timeOrigin,
+                newValues("On Load", "First Paint", "Largest Contentful Paint")).keySet().toArray()));
+
+        // values that keep growing are sent again when they change.
+        final Map<String, Long> grown = newValues("On Load", "First Paint", "Largest Contentful Paint");
+        grown.put("Largest Contentful Paint", 250L);
+        assertEquals(Collections.singletonMap("Largest Contentful Paint", 250L), driverSession.removeSent(timeOrigin, grown));
+        assertTrue(driverSession.removeSent(timeOrigin, grown).isEmpty());
+
+        // a new navigation, even with the same values.
+        assertEquals(newValues("On Load", "First Paint"), driverSession.removeSent(timeOrigin + 1, newValues("On Load", "First Paint")));
+
+        // without a time origin everything is sent.
+        assertEquals(newValues("On Load"), driverSession.removeSent(null, newValues("On Load")));
+        assertEquals(newValues("On Load"), driverSession.removeSent(null, newValues("On Load")));
+    }
+
+    /** One driver never suppresses the values of another driver. */
+    @Test
+    public void testSessionsAreIndependent() {
+        final DriverSession first = new DriverSession();
+        final DriverSession second = new DriverSession();
+        final Double timeOrigin = 1500000000000d;
+
+        assertEquals(1, first.removeSent(timeOrigin, newValues("On Load")).size());
+        assertEquals(1, second.removeSent(timeOrigin, newValues("On Load")).size());
+    }
+
+    /** The page context script is only given up after several failures in a row. */
+    @Test
+    public void testPageContextScriptFailures() {
+        final DriverSession driverSession = new DriverSession();
+        driverSession.pageContextScriptFailed();
+        driverSession.pageContextScriptFailed();
+        driverSession.pageContextScriptSucceeded();
+        driverSession.pageContextScriptFailed();
+        driverSession.pageContextScriptFailed();
+        assertTrue(driverSession.isPageContextScriptActive());
+        driverSession.pageContextScriptFailed();
+        assertFalse(driverSession.isPageContextScriptActive());
+    }
+
+    /** All the proxies of a driver share one send helper, other drivers have their own. */
+    @Test
+    public void testSendHelperShared() {
+        final SeleniumProxyConfig proxyConfig = new SeleniumProxyConfig("any");
+        assertSame(proxyConfig.getProxySendHelper(), proxyConfig.getProxySendHelper());
+        assertFalse(proxyConfig.getProxySendHelper() == new SeleniumProxyConfig("any").getProxySendHelper());
+    }
+}
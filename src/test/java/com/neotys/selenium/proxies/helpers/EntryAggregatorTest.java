@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+public class EntryAggregatorTest {
+
+    /** Percentiles are within the relative error of the histogram; count, min, max and mean are exact. */
+    @Test
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin(), 0);
+        assertEquals(1000, histogram.getMax(), 0);
+        assertEquals(500.5, histogram.getMean(), 0.0001);
+        assertEquals(500, histogram.getPercentile(50), 500 * 0.04);
+        assertEquals(990, histogram.getPercentile(99), 990 * 0.04);
+        assertEquals(1000, histogram.getPercentile(100), 0);
+    }
+
+    /** Bucket bounds must be increasing and consistent with the bucket index. */
+    @Test
+    public void testHistogramBuckets() {
+        for (int index = 0; index < 1000; index++) {
+            final long lowerBound = LatencyHistogram.bucketLowerBound(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(lowerBound));
+            assertTrue(LatencyHistogram.bucketLowerBound(index + 1) > lowerBound);
+        }
+    }
+
+    /** Entries of a window are replaced by one summary per path once the window is over. */
+    @Test
+    public void testAggregate() {
+        final EntryAggregator aggregator = new EntryAggregator(1000, new double[]{50, 99.9});
+
+        assertTrue(aggregator.aggregate(TestEntries.newEntries("home", 10), 0).isEmpty());
+        assertTrue(aggregator.aggregate(TestEntries.newEntries("login", 5), 500).isEmpty());
+
+        final List<Entry> summaries = aggregator.aggregate(TestEntries.newEntries("home", 1), 1000);
+        // mean, count, min, max and two percentiles for each of the two paths.
+        assertEquals(12, summaries.size());
+        assertEquals(Arrays.asList("script", "Timers", "home"), summaries.get(0).getPath());
+        assertEquals(4.5, summaries.get(0).getValue(), 0.0001);
+        assertEquals(Arrays.asList("script", "Timers", "home", EntryAggregator.COUNT_NAME), summaries.get(1).getPath());
+        assertEquals(10, summaries.get(1).getValue(), 0);
+        assertEquals(Arrays.asList("script", "Timers", "home", EntryAggregator.PERCENTILE_PREFIX + "99.9"), summaries.get(5).getPath());
+        assertEquals(0L, summaries.get(0).getTimestamp());
+
+        // the entry recorded at 1000 belongs to the next window.
+        final List<Entry> drained = aggregator.drain();
+        assertEquals(6, drained.size());
+        assertEquals(1000L, drained.get(0).getTimestamp());
+    }
+
+    /** Each window only summarizes its own entries, and a path not seen during a window is forgotten. */
+    @Test
+    public void testNextWindow() {
+        final EntryAggregator aggregator = new EntryAggregator(1000, new double[]{50});
+
+        aggregator.aggregate(TestEntries.newEntries("home", 10), 0);
+        aggregator.aggregate(TestEntries.newEntries("login", 2), 0);
+        assertEquals(10, aggregator.drain().size());
+
+        aggregator.aggregate(Arrays.asList(TestEntries.newEntry("home", 2000, 20)), 2000);
+        final List<Entry> summaries = aggregator.drain();
+        assertEquals(5, summaries.size());
+        assertEquals(Arrays.asList("script", "Timers", "home"), summaries.get(0).getPath());
+        assertEquals(20, summaries.get(0).getValue(), 0);
+        assertEquals(1, summaries.get(1).getValue(), 0);
+        assertEquals(20, summaries.get(2).getValue(), 0);
+
+        assertTrue(aggregator.drain().isEmpty());
+    }
+
+    /** A window is closed once it is over even if no other entry comes. */
+    @Test
+    public void testCloseExpired() {
+        final EntryAggregator aggregator = new EntryAggregator(1000, new double[]{50});
+
+        assertTrue(aggregator.closeExpired(0).isEmpty());
+        aggregator.aggregate(TestEntries.newEntries("home", 3), 0);
+        assertTrue(aggregator.closeExpired(999).isEmpty());
+
+        // mean, count, min, max and one percentile.
+        assertEquals(5, aggregator.closeExpired(1000).size());
+        assertTrue(aggregator.closeExpired(5000).isEmpty());
+    }
+}
@@ -88,4 +88,19 @@ public class EntryHandlerTest {
             System.clearProperty(SeleniumProxyConfig.OPT_PATH_NAMING_POLICY);
         }
     }
+
+    /** Make sure a URL seen before is taken from the cache and gives the same path.
+     * Test method for {@link com.neotys.selenium.proxies.helpers.EntryHandler#createPath(java.lang.String, java.lang.String)}.
+     */
+    @Test
+    public void testCreatePathURLCached() {
+        SeleniumProxyConfig proxyConfig = new SeleniumProxyConfig("Internal JUnit Test Driver");
+
+        final List<String> first = EntryHandler.start(proxyConfig).createPath("http://host/current/url?id=1", "pageTitle");
+        final List<String> second = EntryHandler.start(proxyConfig).createPath("http://host/current/url?id=1", "pageTitle");
+
+        assertEquals(first, second);
+        assertEquals("End of the path is wrong.", "url", second.get(second.size() - 1));
+        assertEquals(0.5, proxyConfig.getURLPathCache().getHitRate(), 0.001);
+    }
 }
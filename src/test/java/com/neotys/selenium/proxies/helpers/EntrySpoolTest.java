@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+public class EntrySpoolTest {
+
+    private static void deleteDirectory(final Path directory) {
+        final File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (final File file: files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    /** Entries are replayed in the order they were written and are only removed once committed. */
+    @Test
+    public void testReplayInOrder() throws IOException {
+        final Path directory = Files.createTempDirectory("spool");
+        final EntrySpool spool = new EntrySpool(directory, 64 * 1024, 4);
+        try {
+            spool.append(TestEntries.newEntries(3));
+
+            final List<Entry> first = spool.peek(2);
+            assertEquals(2, first.size());
+            assertEquals("page0", first.get(0).getPath().get(2));
+            assertEquals(1001L, first.get(1).getTimestamp());
+
+            // not committed: the same entries are returned again.
+            assertEquals("page0", spool.peek(2).get(0).getPath().get(2));
+            spool.commit();
+
+            final List<Entry> second = spool.peek(2);
+            assertEquals(1, second.size());
+            assertEquals("http://localhost/page2", second.get(0).getUrl());
+            spool.commit();
+
+            assertEquals(0, spool.getPendingCount());
+        } finally {
+            spool.close(0);
+            deleteDirectory(directory);
+        }
+    }
+
+    /** When the disk cap is reached the oldest segment is dropped and counted. */
+    @Test
+    public void testOldestSegmentDropped() throws IOException {
+        final Path directory = Files.createTempDirectory("spool");
+        final EntrySpool spool = new EntrySpool(directory, 512, 2);
+        try {
+            spool.append(TestEntries.newEntries(50));
+
+            assertTrue("Some entries should have been dropped.", spool.getDroppedCount() > 0);
+            assertEquals(50, spool.getPendingCount() + spool.getDroppedCount());
+            String last = null;
+            List<Entry> batch;
+            while (!(batch = spool.peek(100)).isEmpty()) {
+                last = batch.get(batch.size() - 1).getPath().get(2);
+                spool.commit();
+            }
+            assertEquals("The newest entry should be kept.", "page49", last);
+        } finally {
+            spool.close(0);
+            deleteDirectory(directory);
+        }
+    }
+
+    /** Entries that were not sent are replayed by the next spool using the same directory. */
+    @Test
+    public void testRecoverAfterRestart() throws IOException {
+        final Path directory = Files.createTempDirectory("spool");
+        try {
+            final EntrySpool spool = new EntrySpool(directory, 64 * 1024, 4);
+            spool.append(TestEntries.newEntries(5));
+            spool.close(0);
+
+            final EntrySpool recovered = new EntrySpool(directory, 64 * 1024, 4);
+            try {
+                assertEquals(5, recovered.getPendingCount());
+                assertEquals("page0", recovered.peek(1).get(0).getPath().get(2));
+            } finally {
+                recovered.close(0);
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /** After a partial send only the entries that were delivered are removed. */
+    @Test
+    public void testPartialCommit() throws IOException {
+        final Path directory = Files.createTempDirectory("spool");
+        final EntrySpool spool = new EntrySpool(directory, 64 * 1024, 4);
+        try {
+            spool.append(TestEntries.newEntries(5));
+
+            assertEquals(4, spool.peek(4).size());
+            spool.commit(3);
+            assertEquals(2, spool.getPendingCount());
+
+            final List<Entry> rest = spool.peek(4);
+            assertEquals(2, rest.size());
+            assertEquals("page3", rest.get(0).getPath().get(2));
+            spool.commit(0);
+            assertEquals(2, spool.getPendingCount());
+            assertEquals("page3", spool.peek(4).get(0).getPath().get(2));
+        } finally {
+            spool.close(0);
+            deleteDirectory(directory);
+        }
+    }
+}
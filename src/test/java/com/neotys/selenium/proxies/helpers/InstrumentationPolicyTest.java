@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class InstrumentationPolicyTest {
+
+    private static Method method(final String name, final Class<?>... parameterTypes) throws NoSuchMethodException {
+        return StringBuilder.class.getMethod(name, parameterTypes);
+    }
+
+    /** Each method gets the flags of the lists it is in. */
+    @Test
+    public void testFlags() throws NoSuchMethodException {
+        final InstrumentationPolicy policy = InstrumentationPolicy.create("test.flags", Collections.singletonList("append"),
+                Arrays.asList("append", "reverse"), Collections.singletonList("reverse"));
+
+        assertEquals(InstrumentationPolicy.ALWAYS_SEND | InstrumentationPolicy.SEND_ON_EXCEPTION,
+                policy.getFlags(method("append", String.class)));
+        assertEquals(InstrumentationPolicy.SEND_ON_EXCEPTION | InstrumentationPolicy.SET_LAST_ACTION,
+                policy.getFlags(method("reverse")));
+        assertEquals(0, policy.getFlags(method("length")));
+        // computed once, the same answer the second time.
+        assertEquals(0, policy.getFlags(method("length")));
+    }
+
+    /** The wildcard matches all methods. */
+    @Test
+    public void testAllMethods() throws NoSuchMethodException {
+        final InstrumentationPolicy policy = InstrumentationPolicy.create("test.all", Collections.<String> emptyList(),
+                Collections.singletonList(InstrumentationPolicy.ALL_METHODS), Collections.<String> emptyList());
+
+        assertEquals(InstrumentationPolicy.SEND_ON_EXCEPTION, policy.getFlags(method("length")));
+        assertEquals(InstrumentationPolicy.SEND_ON_EXCEPTION, policy.getFlags(method("reverse")));
+    }
+
+    /** The configuration replaces the default lists. */
+    @Test
+    public void testConfigurationOverride() throws NoSuchMethodException {
+        final String key = SeleniumProxyConfig.OPT_INSTRUMENTATION_PREFIX + "test.override.always.send";
+        System.setProperty(key, "length, reverse");
+        try {
+            final InstrumentationPolicy policy = InstrumentationPolicy.create("test.override", Collections.singletonList("append"),
+                    Collections.<String> emptyList(), Collections.<String> emptyList());
+
+            assertEquals(InstrumentationPolicy.ALWAYS_SEND, policy.getFlags(method("length")));
+            assertEquals(InstrumentationPolicy.ALWAYS_SEND, policy.getFlags(method("reverse")));
+            assertEquals(0, policy.getFlags(method("append", String.class)));
+        } finally {
+            System.clearProperty(key);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class JsonDataExchangeTransportTest {
+
+    private HttpServer server;
+    private final List<String> sessionBodies = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> entryBodies = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+    /** Entries requests answered with an error, counting from 1. 0 to accept them all. */
+    private volatile int failingRequest = 0;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/DataExchange/v1/Service.svc/Session", exchange -> {
+            sessionBodies.add(readBody(exchange));
+            respond(exchange, 201, "{\"d\":{\"SessionId\":\"session-1\"}}");
+        });
+        server.createContext("/DataExchange/v1/Service.svc/Entries", exchange -> {
+            final String body = readBody(exchange);
+            if (entryBodies.size() + 1 == failingRequest) {
+                respond(exchange, 500, "{}");
+                return;
+            }
+            entryBodies.add(body);
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            respond(exchange, 201, "{}");
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static String readBody(final HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final InputStream in = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(final HttpExchange exchange, final int code, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private JsonDataExchangeTransport newTransport() {
+        final Map<String, String> context = new LinkedHashMap<>();
+        context.put("Software", "Chrome");
+        context.put("Script", "my \"script\"");
+        return new JsonDataExchangeTransport("http://localhost:" + server.getAddress().getPort() + "/DataExchange/v1/Service.svc",
+                "key", context);
+    }
+
+    /** The session is opened once and each entry is posted as JSON with the session ID. */
+    @Test
+    public void testAddEntries() throws IOException {
+        final JsonDataExchangeTransport transport = newTransport();
+        transport.addEntries(Arrays.asList(TestEntries.newEntry("page1", 1000L, 12.5d), TestEntries.newEntry("page2", 2000L, 12.5d)));
+
+        assertEquals(1, sessionBodies.size());
+        assertEquals("{\"d\":{\"Context\":{\"Software\":\"Chrome\",\"Script\":\"my \\\"script\\\"\"},\"ApiKey\":\"key\"}}",
+                sessionBodies.get(0));
+
+        assertEquals(2, entryBodies.size());
+        final String first = entryBodies.get(0);
+        assertTrue(first, first.startsWith("{\"d\":{\"SessionId\":\"session-1\",\"Path\":\"script|Timers|page1\",\"Timestamp\":1000,"));
+        assertTrue(first, first.contains("\"Value\":12.5"));
+        assertTrue(first, first.contains("\"Url\":\"http://localhost/page1\""));
+        assertTrue(entryBodies.get(1), entryBodies.get(1).contains("\"Timestamp\":2000"));
+    }
+
+    /** Consecutive requests reuse the same keep-alive connection. */
+    @Test
+    public void testConnectionReused() throws IOException {
+        final JsonDataExchangeTransport transport = newTransport();
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(TestEntries.newEntry("page" + i, i, 12.5d));
+        }
+        transport.addEntries(entries);
+        transport.addEntries(entries);
+
+        assertEquals(40, entryBodies.size());
+        assertEquals("All entries should be sent over one connection.", 1, clientPorts.size());
+    }
+
+    /** NaN and infinite values are written as null to keep the body valid JSON. */
+    @Test
+    public void testNonFiniteValue() {
+        final EntryBuilder eb = new EntryBuilder(Arrays.asList("script", "Timers", "page"), 1000L);
+        eb.value(Double.NaN);
+        final StringBuilder json = new StringBuilder();
+        JsonDataExchangeTransport.writeEntry(json, "session-1", eb.build());
+        assertTrue(json.toString(), json.toString().contains("\"Value\":null"));
+
+        eb.value(Double.POSITIVE_INFINITY);
+        json.setLength(0);
+        JsonDataExchangeTransport.writeEntry(json, "session-1", eb.build());
+        assertTrue(json.toString(), json.toString().contains("\"Value\":null"));
+    }
+
+    /** When a post fails in the middle of a batch, the exception tells how many entries were delivered. */
+    @Test
+    public void testPartialSend() throws IOException {
+        final JsonDataExchangeTransport transport = newTransport();
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(TestEntries.newEntry("page" + i, i, 12.5d));
+        }
+        failingRequest = 3;
+        try {
+            transport.addEntries(entries);
+            fail("The third post should fail.");
+        } catch (final PartialSendException e) {
+            assertEquals(2, e.getSentCount());
+        }
+        assertEquals(2, entryBodies.size());
+
+        // only the rest of the batch is sent again.
+        failingRequest = 0;
+        transport.addEntries(entries.subList(2, entries.size()));
+        assertEquals(5, entryBodies.size());
+        assertTrue(entryBodies.get(2), entryBodies.get(2).contains("page2"));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import com.neotys.selenium.proxies.RemoteWebElementWrapper;
+
+public class LazyWrappingListTest {
+
+    private static List<Object> wrap(final List<?> list) {
+        return new WrapperUtils(null).wrapIfNecessary(null, list);
+    }
+
+    /** Elements are wrapped when read, and only once. */
+    @Test
+    public void testWrapOnGet() {
+        final List<Object> list = wrap(Arrays.asList(new RemoteWebElement(), "text"));
+
+        assertTrue(list instanceof RandomAccess);
+        assertEquals(2, list.size());
+        assertTrue(list.get(0) instanceof RemoteWebElementWrapper);
+        assertSame(list.get(0), list.get(0));
+        assertEquals("text", list.get(1));
+        assertSame("A wrapped list should not be wrapped again.", list, wrap(list));
+    }
+
+    /** The list can be changed like the list returned by Selenium. */
+    @Test
+    public void testChange() {
+        final List<Object> list = wrap(new ArrayList<>(Arrays.asList(new RemoteWebElement(), new RemoteWebElement())));
+        final Object first = list.get(0);
+
+        list.remove(1);
+        list.add("added");
+
+        assertEquals(2, list.size());
+        assertSame(first, list.get(0));
+        assertEquals("added", list.get(1));
+    }
+
+    /** Empty lists are returned as is. */
+    @Test
+    public void testEmpty() {
+        final List<Object> empty = Collections.emptyList();
+        assertSame(empty, wrap(empty));
+    }
+}
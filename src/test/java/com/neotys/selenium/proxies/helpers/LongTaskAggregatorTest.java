@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.selenium.proxies.helpers.LongTaskAggregator.LongTasks;
+
+public class LongTaskAggregatorTest {
+
+    /** The long tasks of a transaction are added up and sent under the transaction timer. */
+    @Test
+    public void testDrain() {
+        final LongTaskAggregator aggregator = new LongTaskAggregator();
+        aggregator.start(Arrays.asList("script", "Timers", "Login", "Timer"));
+        aggregator.add(new LongTasks(2, 80, 120));
+        aggregator.add(new LongTasks(1, 250, 300));
+
+        final List<Entry> entries = aggregator.drain(1000L);
+
+        assertEquals(3, entries.size());
+        assertEquals(Arrays.asList("script", "Timers", "Login", "Timer", LongTaskAggregator.LONG_TASKS_NAME, LongTaskAggregator.COUNT_NAME),
+                entries.get(0).getPath());
+        assertEquals(Double.valueOf(3), entries.get(0).getValue());
+        assertEquals(Double.valueOf(330), entries.get(1).getValue());
+        assertEquals(Double.valueOf(300), entries.get(2).getValue());
+        assertEquals(1000L, entries.get(2).getTimestamp());
+
+        // a transaction without long tasks reports zeros once the browser reported them.
+        assertTrue(aggregator.drain(2000L).isEmpty());
+        aggregator.add(new LongTasks(0, 0, 0));
+        assertEquals(Double.valueOf(0), aggregator.drain(3000L).get(1).getValue());
+    }
+
+    /** Long tasks observed outside of a transaction are not sent. */
+    @Test
+    public void testOutsideOfTransaction() {
+        final LongTaskAggregator aggregator = new LongTaskAggregator();
+        aggregator.add(new LongTasks(1, 10, 60));
+        assertTrue(aggregator.drain(1000L).isEmpty());
+
+        aggregator.start(Arrays.asList("script", "Timer"));
+        aggregator.stop();
+        aggregator.add(new LongTasks(1, 10, 60));
+        assertTrue(aggregator.drain(1000L).isEmpty());
+    }
+}
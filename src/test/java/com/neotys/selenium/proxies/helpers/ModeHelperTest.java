@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ModeHelperTest {
+
+    /** Values may contain '=', the first argument wins and arguments without a value are ignored. */
+    @Test
+    public void testParseCommandLineSettings() {
+        final Map<String, String> settings = ModeHelper.parseCommandLineSettings(new String[]{
+                "com.example.Main", "-Dnl.a=1", "-Dnl.b=x=y", "-Dnl.a=2", "-Dnl.empty=", "-Dnl.flag", "nl.c=3", ""});
+
+        assertEquals("1", settings.get("nl.a"));
+        assertEquals("x=y", settings.get("nl.b"));
+        assertFalse(settings.containsKey("nl.empty"));
+        assertFalse(settings.containsKey("nl.flag"));
+        assertFalse(settings.containsKey("nl.c"));
+        assertEquals(2, settings.size());
+    }
+
+    /** System properties take precedence over the default value. */
+    @Test
+    public void testGetSetting() {
+        final String key = ModeHelper.OPT_PREFIX + "mode.helper.test";
+        assertEquals("default", ModeHelper.getSetting(key, "default"));
+        System.setProperty(key, "value");
+        try {
+            assertEquals("value", ModeHelper.getSetting(key, "default"));
+        } finally {
+            System.clearProperty(key);
+        }
+    }
+}
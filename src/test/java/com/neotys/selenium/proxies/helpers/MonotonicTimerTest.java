@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.TimerBuilder;
+
+public class MonotonicTimerTest {
+
+    /** The elapsed time is never negative and never goes back. */
+    @Test
+    public void testElapsedMillis() throws InterruptedException {
+        final MonotonicTimer timer = MonotonicTimer.start();
+        double previous = timer.getElapsedMillis();
+        assertTrue(previous >= 0);
+        for (int i = 0; i < 1000; i++) {
+            final double elapsed = timer.getElapsedMillis();
+            assertTrue(elapsed + " < " + previous, elapsed >= previous);
+            previous = elapsed;
+        }
+        Thread.sleep(20);
+        assertTrue(String.valueOf(timer.getElapsedMillis()), timer.getElapsedMillis() >= 19);
+    }
+
+    /** The entry created at stop has the path and wall-clock start given at start, and the elapsed time as value. */
+    @Test
+    public void testStop() throws InterruptedException {
+        final List<String> path = Arrays.asList("script", "Timers", "transaction");
+        final long before = System.currentTimeMillis();
+        final MonotonicTimer timer = MonotonicTimer.start(path);
+        final long after = System.currentTimeMillis();
+        Thread.sleep(5);
+        final double elapsed = timer.getElapsedMillis();
+
+        final Entry entry = timer.stop();
+        assertEquals(path, entry.getPath());
+        assertEquals(timer.getStartTimestamp(), entry.getTimestamp());
+        assertTrue(entry.getTimestamp() >= before && entry.getTimestamp() <= after);
+        assertEquals(TimerBuilder.DEFAULT_UNIT, entry.getUnit());
+        assertTrue(entry.getValue() + " < " + elapsed, entry.getValue() >= elapsed);
+        assertNull(entry.getStatus());
+    }
+
+    /** A timer created from a start read without one measures from that start. */
+    @Test
+    public void testStartedAt() throws InterruptedException {
+        final long startTimestamp = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        Thread.sleep(20);
+        assertTrue(MonotonicTimer.elapsedMillis(startNanos) >= 19);
+
+        final MonotonicTimer timer = MonotonicTimer.startedAt(startTimestamp, startNanos);
+        assertEquals(startTimestamp, timer.getStartTimestamp());
+        assertTrue(timer.getElapsedMillis() >= 19);
+        assertTrue(MonotonicTimer.elapsedMillis(System.nanoTime() + 1000000) == 0);
+    }
+}
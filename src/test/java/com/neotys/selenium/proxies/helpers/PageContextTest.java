@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+public class PageContextTest {
+
+    /** A driver whose executeScript returns the given result, counting the calls. */
+    private static WebDriver newDriver(final Object scriptResult, final AtomicInteger scriptCalls) {
+        return (WebDriver) Proxy.newProxyInstance(PageContextTest.class.getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeScript":
+                            scriptCalls.incrementAndGet();
+                            return scriptResult;
+                        case "getCurrentUrl":
+                            return "http://fallback/url";
+                        case "getTitle":
+                            return "fallback title";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /** The URL, title and timing come from a single script call. */
+    @Test
+    public void testFromScript() {
+        final Map<String, Object> timing = new HashMap<>();
+        timing.put("fetchStart", 1000L);
+        timing.put("loadEventEnd", 1500.0d);
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://host/page");
+        result.put("title", "Page");
+        result.put("timeOrigin", 999.5d);
+        result.put("now", 1700000000000L);
+        result.put("timing", timing);
+        final Map<String, Object> longTasks = new HashMap<>();
+        longTasks.put("count", 2L);
+        longTasks.put("blockingTime", 75.5d);
+        longTasks.put("longest", 110L);
+        result.put("longTasks", longTasks);
+        final AtomicInteger scriptCalls = new AtomicInteger();
+
+        final PageContext pageContext = PageContext.fromScript((JavascriptExecutor) newDriver(result, scriptCalls));
+
+        assertEquals(1, scriptCalls.get());
+        assertEquals("http://host/page", pageContext.getURL());
+        assertEquals("Page", pageContext.getTitle());
+        assertEquals(Double.valueOf(999.5d), pageContext.getTimeOrigin());
+        assertEquals(Double.valueOf(1700000000000d), pageContext.getBrowserTime());
+        assertEquals(Long.valueOf(1000L), pageContext.getNavigationTiming("fetchStart"));
+        assertEquals(Long.valueOf(1500L), pageContext.getNavigationTiming("loadEventEnd"));
+        assertNull(pageContext.getNavigationTiming("redirectStart"));
+        assertTrue(pageContext.getResourceTimings().isEmpty());
+        assertEquals(2L, pageContext.getLongTasks().getCount());
+        assertEquals(75.5d, pageContext.getLongTasks().getBlockingTime(), 0);
+        assertEquals(110d, pageContext.getLongTasks().getLongest(), 0);
+    }
+
+    /** The resources returned by the script are parsed per type, with the slowest ones. */
+    @Test
+    public void testResourceTimings() {
+        final Map<String, Object> script = new HashMap<>();
+        script.put("count", 2L);
+        script.put("transferSize", 2048L);
+        script.put("blockedTime", 12.5d);
+        final Map<String, Object> slowest = new HashMap<>();
+        slowest.put("url", "http://host/app.js");
+        slowest.put("duration", 350.2d);
+        final Map<String, Object> resources = new HashMap<>();
+        resources.put("types", Collections.singletonMap("script", script));
+        resources.put("slowest", Collections.singletonList(slowest));
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://host/page");
+        result.put("resources", resources);
+
+        final ResourceTimingAggregator.Batch batch = PageContext.fromScript((JavascriptExecutor) newDriver(result, new AtomicInteger()),
+                Collections.<String, Object>singletonMap(PageContext.OPTION_SLOWEST_RESOURCES, 5))
+                .getResourceTimings();
+
+        assertEquals(2L, batch.getTotalsByType().get("script").getCount());
+        assertEquals(2048L, batch.getTotalsByType().get("script").getTransferSize());
+        assertEquals(12.5d, batch.getTotalsByType().get("script").getBlockedTime(), 0);
+        assertEquals("http://host/app.js", batch.getSlowest().get(0).getURL());
+        assertEquals(350.2d, batch.getSlowest().get(0).getDuration(), 0);
+    }
+
+    /** Paint and layout shift metrics are reported even when the legacy timing is not available. */
+    @Test
+    public void testMetrics() {
+        final Map<String, Object> metrics = new HashMap<>();
+        metrics.put("firstContentfulPaint", 812.6d);
+        metrics.put("transferSize", 20480L);
+        metrics.put("cumulativeLayoutShift", 0.1234d);
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://metrics/page");
+        result.put("title", "Page");
+        result.put("metrics", metrics);
+
+        final PageContext pageContext = PageContext.fromScript((JavascriptExecutor) newDriver(result, new AtomicInteger()));
+
+        assertFalse(pageContext.hasNavigationTiming());
+        assertTrue(pageContext.hasMetrics());
+        assertEquals(Double.valueOf(812.6d), pageContext.getMetric("firstContentfulPaint"));
+        assertNull(pageContext.getMetric("largestContentfulPaint"));
+
+        final Map<String, Long> advancedValues = new ProxySendHelper(new SeleniumProxyConfig("any")).getAdvancedValues(pageContext);
+        assertEquals(Long.valueOf(813L), advancedValues.get("First Contentful Paint"));
+        assertEquals(Long.valueOf(20480L), advancedValues.get(ProxySendHelper.TRANSFER_SIZE_LABEL));
+        assertEquals(Long.valueOf(123L), advancedValues.get(ProxySendHelper.CUMULATIVE_LAYOUT_SHIFT_LABEL));
+        assertFalse(advancedValues.containsKey("Time To First Byte"));
+    }
+
+    /** Each soft navigation is sent, even though the time origin of the page does not change. */
+    @Test
+    public void testSoftNavigation() {
+        final Map<String, Object> timing = new HashMap<>();
+        timing.put("redirectStart", 0L);
+        timing.put("fetchStart", 1000L);
+        timing.put("loadEventEnd", 1500L);
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://spa/home");
+        result.put("timeOrigin", 1000.5d);
+        result.put("timing", timing);
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        final PageContext hardNavigation = PageContext.fromScript((JavascriptExecutor) newDriver(result, new AtomicInteger()));
+        assertEquals(Long.valueOf(500L), proxySendHelper.getAdvancedValues(hardNavigation).get("Document Complete"));
+
+        result.put("softNavigation", 420.4d);
+        final PageContext softNavigation = PageContext.fromScript((JavascriptExecutor) newDriver(result, new AtomicInteger()),
+                Collections.<String, Object>singletonMap(PageContext.OPTION_SOFT_NAVIGATION, Boolean.TRUE));
+        final Map<String, Long> advancedValues = proxySendHelper.getAdvancedValues(softNavigation);
+        assertEquals(Collections.singletonMap(ProxySendHelper.SOFT_NAVIGATION_LABEL, 420L), advancedValues);
+        assertEquals(1, proxySendHelper.getAdvancedValues(softNavigation).size());
+    }
+
+    /** A driver whose page context script reports a pending soft navigation, and whose wait script gives the result. */
+    private static WebDriver newSoftNavigationDriver(final Object waitResult, final AtomicInteger waitCalls) {
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://spa/cart");
+        result.put("softNavigationPending", Boolean.TRUE);
+        return (WebDriver) Proxy.newProxyInstance(PageContextTest.class.getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeScript":
+                            return result;
+                        case "executeAsyncScript":
+                            waitCalls.incrementAndGet();
+                            if (waitResult instanceof RuntimeException) {
+                                throw (RuntimeException) waitResult;
+                            }
+                            return waitResult;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /** A soft navigation still running after the action is waited for and sent with that action. */
+    @Test
+    public void testSoftNavigationWait() {
+        final AtomicInteger waitCalls = new AtomicInteger();
+        final WebDriver driver = newSoftNavigationDriver(310.6d, waitCalls);
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        final PageContext pageContext = proxySendHelper.getPageContext(driver);
+        assertEquals(1, waitCalls.get());
+        assertFalse(pageContext.isSoftNavigationPending());
+        assertEquals(Double.valueOf(310.6d), pageContext.getSoftNavigation());
+        assertEquals("http://spa/cart", pageContext.getURL());
+    }
+
+    /** If the wait script fails, soft navigations are only sent once they settled, by a later action. */
+    @Test
+    public void testSoftNavigationWaitFails() {
+        final AtomicInteger waitCalls = new AtomicInteger();
+        final WebDriver driver = newSoftNavigationDriver(new IllegalStateException("script timeout"), waitCalls);
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        assertNull(proxySendHelper.getPageContext(driver).getSoftNavigation());
+        assertNull(proxySendHelper.getPageContext(driver).getSoftNavigation());
+        assertEquals("The wait should not be tried again.", 1, waitCalls.get());
+    }
+
+    /** Samples are sent with every action on the same page. */
+    @Test
+    public void testSamples() {
+        final Map<String, Object> samples = new HashMap<>();
+        samples.put("jsHeapUsed", 52428800L);
+        samples.put("domNodes", 1500L);
+        final Map<String, Object> result = new HashMap<>();
+        result.put("url", "http://soak/page");
+        result.put("timeOrigin", 2000.5d);
+        result.put("samples", samples);
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        for (int i = 0; i < 2; i++) {
+            final PageContext pageContext = PageContext.fromScript((JavascriptExecutor) newDriver(result, new AtomicInteger()),
+                    Collections.<String, Object>singletonMap(PageContext.OPTION_SAMPLES, Boolean.TRUE));
+            final Map<String, Long> advancedValues = proxySendHelper.getAdvancedValues(pageContext);
+            assertEquals(Long.valueOf(52428800L), advancedValues.get(ProxySendHelper.JS_HEAP_USED_LABEL));
+            assertEquals(Long.valueOf(1500L), advancedValues.get(ProxySendHelper.DOM_NODES_LABEL));
+        }
+    }
+
+    /** A driver that cannot run the script falls back to getCurrentUrl and getTitle. */
+    @Test
+    public void testFallback() {
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        final PageContext pageContext = proxySendHelper.getPageContext(newDriver("not a map", new AtomicInteger()));
+
+        assertEquals("http://fallback/url", pageContext.getURL());
+        assertEquals("fallback title", pageContext.getTitle());
+        assertFalse(pageContext.hasNavigationTiming());
+        assertTrue(proxySendHelper.getAdvancedValues(pageContext).isEmpty());
+    }
+}
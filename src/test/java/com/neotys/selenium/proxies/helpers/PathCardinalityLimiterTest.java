@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PathCardinalityLimiterTest {
+
+    /** Known paths are kept, new paths past the limit are folded into Other under the prefix. */
+    @Test
+    public void testLimit() {
+        final PathCardinalityLimiter limiter = new PathCardinalityLimiter(2);
+        final List<String> first = Arrays.asList("script", "Timers", "page1");
+        final List<String> second = Arrays.asList("script", "Timers", "page2", "detail");
+
+        assertSame(first, limiter.limit(first, 2));
+        assertSame(second, limiter.limit(second, 2));
+        assertEquals(Arrays.asList("script", "Timers", PathCardinalityLimiter.OTHER_NAME),
+                limiter.limit(Arrays.asList("script", "Timers", "page3"), 2));
+        assertEquals("A known path is still kept.", first, limiter.limit(Arrays.asList("script", "Timers", "page1"), 2));
+        limiter.limit(Arrays.asList("script", "Timers", "page4"), 2);
+
+        assertEquals(2, limiter.getFoldedCount());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ProxiedMethodTest {
+
+    private static final ProxiedMethod SUBSTRING = ProxiedMethod.of(String.class, "substring", int.class);
+    private static final ProxiedMethod CLEAR = ProxiedMethod.of(ArrayList.class, "clear");
+
+    /** Arguments are spread and primitives unboxed, void methods return null. */
+    @Test
+    public void testInvoke() throws IllegalAccessException, InvocationTargetException {
+        assertEquals("world", SUBSTRING.invoke("hello world", new Object[]{6}));
+
+        final List<String> list = new ArrayList<>();
+        list.add("value");
+        assertNull(CLEAR.invoke(list, null));
+        assertEquals(0, list.size());
+        assertEquals("clear", CLEAR.getName());
+    }
+
+    /** Exceptions are wrapped like Method.invoke does. */
+    @Test
+    public void testException() throws IllegalAccessException {
+        try {
+            SUBSTRING.invoke("short", new Object[]{10});
+            fail("An exception should have been thrown.");
+        } catch (final InvocationTargetException e) {
+            assertSame(StringIndexOutOfBoundsException.class, e.getCause().getClass());
+        }
+    }
+
+    /** A method that does not exist fails when it is resolved, not when it is called. */
+    @Test
+    public void testUnknownMethod() {
+        try {
+            ProxiedMethod.of(String.class, "noSuchMethod");
+            fail("An exception should have been thrown.");
+        } catch (final IllegalStateException e) {
+            assertSame(NoSuchMethodException.class, e.getCause().getClass());
+        }
+    }
+
+    /** Only public methods are resolved. */
+    @Test
+    public void testNonPublicMethod() {
+        try {
+            ProxiedMethod.of(ProxiedMethodTest.class, "hidden");
+            fail("An exception should have been thrown.");
+        } catch (final IllegalStateException e) {
+            assertSame(IllegalAccessException.class, e.getCause().getClass());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private void hidden() {
+    }
+}
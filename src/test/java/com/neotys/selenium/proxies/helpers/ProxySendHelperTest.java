@@ -27,11 +27,27 @@
  */
 package com.neotys.selenium.proxies.helpers;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.Assume;
 import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.htmlunit.HtmlUnitDriver;
@@ -80,4 +96,145 @@ public class ProxySendHelperTest {
         }
     }
 
+    /** The resources loaded and the long tasks run after the last action are read when the transaction ends, with the
+     * options of the transaction only. */
+    @Test
+    public void testReadTransactionTail() {
+        final List<Object> scriptOptions = new ArrayList<>();
+        final Map<String, Object> totals = new HashMap<>();
+        totals.put("count", 3L);
+        totals.put("transferSize", 2048L);
+        totals.put("blockedTime", 0L);
+        final Map<String, Object> resources = new HashMap<>();
+        resources.put("types", Collections.singletonMap("img", totals));
+        resources.put("slowest", Collections.emptyList());
+        final Map<String, Object> longTasks = new HashMap<>();
+        longTasks.put("count", 1L);
+        longTasks.put("blockingTime", 30L);
+        longTasks.put("longest", 80L);
+        final Map<String, Object> result = new HashMap<>();
+        result.put("resources", resources);
+        result.put("longTasks", longTasks);
+        final WebDriver driver = (WebDriver) Proxy.newProxyInstance(ProxySendHelperTest.class.getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    if ("executeScript".equals(method.getName())) {
+                        scriptOptions.add(((Object[]) args[1])[0]);
+                        return result;
+                    }
+                    return null;
+                });
+
+        System.setProperty(ModeHelper.OPT_SELENIUM_WRAPPER_MODE, ModeHelper.MODE_END_USER_EXPERIENCE);
+        System.setProperty(SeleniumProxyConfig.OPT_RESOURCE_TIMING_ENABLED, "true");
+        System.setProperty(SeleniumProxyConfig.OPT_LONG_TASKS_ENABLED, "true");
+        try {
+            final SeleniumProxyConfig proxyConfig = new SeleniumProxyConfig("any");
+            final ProxySendHelper proxySendHelper = new ProxySendHelper(proxyConfig);
+
+            proxySendHelper.readTransactionTail(driver);
+            assertTrue("Nothing should be read outside of a transaction.", scriptOptions.isEmpty());
+
+            proxyConfig.startTransaction("transaction");
+            proxySendHelper.readTransactionTail(driver);
+            assertEquals(1, scriptOptions.size());
+            assertEquals(new HashSet<>(Arrays.asList(PageContext.OPTION_SLOWEST_RESOURCES, PageContext.OPTION_LONG_TASKS)),
+                    ((Map<?, ?>) scriptOptions.get(0)).keySet());
+            assertFalse("The resources should be counted in the transaction.",
+                    proxyConfig.getResourceTimingAggregator().get().drain(0L).isEmpty());
+            assertEquals("The long tasks should be counted in the transaction.",
+                    3, proxyConfig.getLongTaskAggregator().get().drain(0L).size());
+        } finally {
+            System.clearProperty(ModeHelper.OPT_SELENIUM_WRAPPER_MODE);
+            System.clearProperty(SeleniumProxyConfig.OPT_RESOURCE_TIMING_ENABLED);
+            System.clearProperty(SeleniumProxyConfig.OPT_LONG_TASKS_ENABLED);
+        }
+    }
+
+    /** Long tasks are only observed when enabled, like the other collections of the transaction. */
+    @Test
+    public void testLongTasksDisabledByDefault() {
+        final SeleniumProxyConfig proxyConfig = new SeleniumProxyConfig("any");
+        assertFalse(proxyConfig.getLongTaskAggregator().isPresent());
+        assertTrue(proxyConfig.getTransactionTailScriptOptions().isEmpty());
+        assertFalse(proxyConfig.getPageContextScriptOptions(true).containsKey(PageContext.OPTION_LONG_TASKS));
+    }
+
+    /** A page whose layout shifts are reported to the observers by shift(value), after the script that installed them
+     * returned, like a browser reports the buffered entries. */
+    private static final String PAGE = "var window = this;\n"
+            + "window.top = window;\n"
+            + "var location = {href: 'http://host/page'};\n"
+            + "var document = {title: 'Page', getElementsByTagName: function () { return []; }};\n"
+            + "var performance = {timeOrigin: 1500000000000.5, getEntriesByType: function () { return []; },\n"
+            + "    timing: {navigationStart: 1500000000000, redirectStart: 0, fetchStart: 1500000000010,\n"
+            + "        responseStart: 1500000000100, domContentLoadedEventStart: 1500000000300,\n"
+            + "        loadEventStart: 1500000000500, loadEventEnd: 1500000000510}};\n"
+            + "var layoutShiftCallbacks = [];\n"
+            + "function PerformanceObserver(callback) { this.callback = callback; }\n"
+            + "PerformanceObserver.prototype.observe = function (options) {\n"
+            + "    if (options.type === 'layout-shift') { layoutShiftCallbacks.push(this.callback); }\n"
+            + "};\n"
+            + "function shift(value) {\n"
+            + "    layoutShiftCallbacks.forEach(function (callback) {\n"
+            + "        callback({getEntries: function () { return [{value: value, hadRecentInput: false}]; }});\n"
+            + "    });\n"
+            + "}\n";
+
+    /** A driver running the scripts with the JavaScript engine of the JVM, on {@link #PAGE}. */
+    private static WebDriver newScriptDriver(final ScriptEngine engine) throws ScriptException {
+        engine.eval(PAGE);
+        return (WebDriver) Proxy.newProxyInstance(ProxySendHelperTest.class.getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    if ("executeScript".equals(method.getName())) {
+                        engine.eval("function executeScript() {\n" + args[0] + "\n}");
+                        return ((Invocable) engine).invokeFunction("executeScript", (Object[]) args[1]);
+                    }
+                    return null;
+                });
+    }
+
+    /** The layout shifts are only reported once the first read of the page installed the observer: the cumulative
+     * layout shift is sent from the second read of the page, with its real value, and again each time it grows. */
+    @Test
+    public void testCumulativeLayoutShift() throws ScriptException {
+        // only Java 8 to 14 come with a JavaScript engine.
+        final ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+        Assume.assumeNotNull(engine);
+        final WebDriver driver = newScriptDriver(engine);
+        final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+
+        final Map<String, Long> first = proxySendHelper.getAdvancedValues(driver);
+        assertEquals(Long.valueOf(490L), first.get("On Load"));
+        assertFalse("The layout shifts are not reported yet.", first.containsKey(ProxySendHelper.CUMULATIVE_LAYOUT_SHIFT_LABEL));
+
+        engine.eval("shift(0.1); shift(0.15);");
+        assertEquals(Collections.singletonMap(ProxySendHelper.CUMULATIVE_LAYOUT_SHIFT_LABEL, 250L),
+                proxySendHelper.getAdvancedValues(driver));
+        assertTrue(proxySendHelper.getAdvancedValues(driver).isEmpty());
+
+        engine.eval("shift(0.05);");
+        assertEquals(Collections.singletonMap(ProxySendHelper.CUMULATIVE_LAYOUT_SHIFT_LABEL, 300L),
+                proxySendHelper.getAdvancedValues(driver));
+    }
+
+    /** Without navigation timing the script only reads the URL and title, and installs no observer in the page. */
+    @Test
+    public void testNavigationTimingDisabled() throws ScriptException {
+        final ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+        Assume.assumeNotNull(engine);
+        final WebDriver driver = newScriptDriver(engine);
+
+        System.setProperty(SeleniumProxyConfig.OPT_NAVIGATION_TIMING, "false");
+        try {
+            final ProxySendHelper proxySendHelper = new ProxySendHelper(new SeleniumProxyConfig("any"));
+            final PageContext pageContext = proxySendHelper.getPageContext(driver);
+            assertEquals("http://host/page", pageContext.getURL());
+            assertEquals("Page", pageContext.getTitle());
+            assertFalse(pageContext.hasNavigationTiming());
+            assertFalse(pageContext.hasMetrics());
+            assertEquals(Boolean.TRUE, engine.eval("window.__neoloadVitals === undefined"));
+        } finally {
+            System.clearProperty(SeleniumProxyConfig.OPT_NAVIGATION_TIMING);
+        }
+    }
 }
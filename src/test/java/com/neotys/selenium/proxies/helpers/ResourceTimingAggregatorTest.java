@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.Batch;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.SlowResource;
+import com.neotys.selenium.proxies.helpers.ResourceTimingAggregator.TypeTotals;
+
+public class ResourceTimingAggregatorTest {
+
+    private static Batch newBatch(final String type, final long count, final long transferSize, final SlowResource... slowest) {
+        final Map<String, TypeTotals> totalsByType = new LinkedHashMap<>();
+        totalsByType.put(type, new TypeTotals(count, transferSize, 2.5d));
+        return new Batch(totalsByType, Arrays.asList(slowest));
+    }
+
+    private static Entry find(final List<Entry> entries, final String... pathEnd) {
+        for (final Entry entry: entries) {
+            final List<String> path = entry.getPath();
+            if (path.subList(path.size() - pathEnd.length, path.size()).equals(Arrays.asList(pathEnd))) {
+                return entry;
+            }
+        }
+        throw new AssertionError("No entry ending with " + Arrays.toString(pathEnd) + " in " + entries);
+    }
+
+    /** The batches of a transaction are added up per type and only the slowest resources are kept. */
+    @Test
+    public void testDrain() {
+        final ResourceTimingAggregator aggregator = new ResourceTimingAggregator(2);
+        aggregator.start(Arrays.asList("script", "Timers", "Login"));
+        aggregator.add(newBatch("script", 3, 300, new SlowResource("http://host/a.js", 40), new SlowResource("http://host/b.js", 10)));
+        aggregator.add(newBatch("script", 1, 100, new SlowResource("http://host/c.js", 25)));
+        aggregator.add(newBatch("img", 2, 50));
+
+        final List<Entry> entries = aggregator.drain(1000L);
+
+        assertEquals(2 * 3 + 2, entries.size());
+        assertEquals(Double.valueOf(4), find(entries, "Resources", "script", ResourceTimingAggregator.COUNT_NAME).getValue());
+        assertEquals(Double.valueOf(400), find(entries, "Resources", "script", ResourceTimingAggregator.TRANSFER_SIZE_NAME).getValue());
+        assertEquals(Double.valueOf(5), find(entries, "Resources", "script", ResourceTimingAggregator.BLOCKED_TIME_NAME).getValue());
+        assertEquals(Double.valueOf(2), find(entries, "Resources", "img", ResourceTimingAggregator.COUNT_NAME).getValue());
+
+        final Entry slowest = find(entries, "Resources", ResourceTimingAggregator.SLOWEST_NAME, "1");
+        assertEquals("http://host/a.js", slowest.getUrl());
+        assertEquals("http://host/c.js", find(entries, "Resources", ResourceTimingAggregator.SLOWEST_NAME, "2").getUrl());
+        assertEquals(Arrays.asList("script", "Timers", "Login", "Resources", "Slowest", "1"), slowest.getPath());
+        assertEquals(1000L, slowest.getTimestamp());
+
+        // the next transaction starts from scratch.
+        assertTrue(aggregator.drain(2000L).isEmpty());
+    }
+
+    /** Resources loaded outside of a transaction are not sent. */
+    @Test
+    public void testOutsideOfTransaction() {
+        final ResourceTimingAggregator aggregator = new ResourceTimingAggregator(5);
+        aggregator.add(newBatch("script", 1, 100));
+        assertTrue(aggregator.drain(1000L).isEmpty());
+
+        aggregator.start(Collections.singletonList("script"));
+        aggregator.stop();
+        aggregator.add(newBatch("script", 1, 100));
+        assertTrue(aggregator.drain(1000L).isEmpty());
+    }
+}
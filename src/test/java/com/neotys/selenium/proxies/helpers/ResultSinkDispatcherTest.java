@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+
+public class ResultSinkDispatcherTest {
+
+    /** Keeps what it receives, optionally waiting for a latch on each batch. */
+    private static class RecordingSink implements ResultSink {
+        private final String name;
+        private final boolean configured;
+        private final CountDownLatch release;
+        final List<Entry> received = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean closed = false;
+
+        RecordingSink(final String name, final boolean configured, final CountDownLatch release) {
+            this.name = name;
+            this.configured = configured;
+            this.release = release;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean open() {
+            return configured;
+        }
+
+        @Override
+        public void send(final List<Entry> entries) throws IOException {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAll(entries);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /** Every configured sink receives every entry; a blocked sink only drops its own entries. */
+    @Test
+    public void testFanOut() throws InterruptedException {
+        final RecordingSink fast = new RecordingSink("fast", true, new CountDownLatch(0));
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSink slow = new RecordingSink("slow", true, release);
+        final RecordingSink unconfigured = new RecordingSink("unconfigured", false, new CountDownLatch(0));
+
+        final ResultSinkDispatcher dispatcher = new ResultSinkDispatcher(Arrays.<ResultSink>asList(fast, slow, unconfigured), 20, 5, 0);
+        try {
+            assertEquals(Arrays.asList("fast", "slow"), dispatcher.getSinkNames());
+
+            for (int i = 1; i <= 10; i++) {
+                final long start = System.currentTimeMillis();
+                dispatcher.dispatch(TestEntries.newEntries(5));
+                assertTrue("Dispatching must not wait for the sinks.", System.currentTimeMillis() - start < 1000);
+                // let the fast sink keep up, the slow one stays blocked.
+                while (fast.received.size() < i * 5 && System.currentTimeMillis() - start < 5000) {
+                    Thread.sleep(1);
+                }
+            }
+            assertTrue(slow.received.isEmpty());
+            release.countDown();
+            assertTrue(dispatcher.flush(10000));
+
+            assertEquals(50, fast.received.size());
+            assertEquals(0, dispatcher.getDroppedCount("fast"));
+            assertTrue("The slow sink should have dropped entries.", dispatcher.getDroppedCount("slow") > 0);
+            assertEquals(50, slow.received.size() + dispatcher.getDroppedCount("slow"));
+        } finally {
+            dispatcher.close(1000);
+        }
+        assertTrue(fast.closed);
+        assertTrue(slow.closed);
+    }
+}
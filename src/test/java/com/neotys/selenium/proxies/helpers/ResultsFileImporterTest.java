@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.Status;
+
+public class ResultsFileImporterTest {
+
+    private static List<Entry> readAll(final Path file) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try (final ResultsFileReader reader = new ResultsFileReader(file)) {
+            Entry entry;
+            while ((entry = reader.next()) != null) {
+                entries.add(entry);
+            }
+            assertFalse(reader.isTruncated());
+        }
+        return entries;
+    }
+
+    /** Entries read back are identical, including those appended by a second writer. */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Path file = Files.createTempFile("results", ".nlr");
+        try {
+            // a few timers repeated, and one failure.
+            final List<Entry> written = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                written.add(TestEntries.newEntry("page" + (i % 3), 1500000000000L + i * 250L, i * 1.5d,
+                        i == 1 ? new Exception("boom") : null));
+            }
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file)) {
+                writer.write(written.subList(0, 5));
+                writer.write(written.subList(5, 10));
+            }
+            final List<Entry> appended = TestEntries.newEntries(3, 1400000000000L);
+            written.addAll(appended);
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file)) {
+                writer.write(appended);
+            }
+
+            final List<Entry> read = readAll(file);
+            assertEquals(written.size(), read.size());
+            for (int i = 0; i < written.size(); i++) {
+                final Entry expected = written.get(i);
+                final Entry actual = read.get(i);
+                assertEquals(expected.getPath(), actual.getPath());
+                assertEquals(expected.getTimestamp(), actual.getTimestamp());
+                assertEquals(expected.getValue(), actual.getValue());
+                assertEquals(expected.getUnit(), actual.getUnit());
+                assertEquals(expected.getUrl(), actual.getUrl());
+                assertEquals(expected.getStatus().getCode(), actual.getStatus().getCode());
+                assertEquals(expected.getStatus().getMessage(), actual.getStatus().getMessage());
+                assertEquals(expected.getStatus().getState(), actual.getStatus().getState());
+            }
+            assertEquals(Status.State.FAIL, read.get(1).getStatus().getState());
+            long plainSize = 0;
+            for (final Entry entry: written) {
+                plainSize += EntryCodec.encode(entry).length;
+            }
+            assertTrue("Paths and timestamps should be compact.", Files.size(file) < plainSize * 3 / 4);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** A record cut short is ignored and everything before it is imported in batches. */
+    @Test
+    public void testImportTruncatedFile() throws Exception {
+        final Path file = Files.createTempFile("results", ".nlr");
+        try {
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file)) {
+                writer.write(TestEntries.newEntries(25, 1000L));
+            }
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+
+            final List<Integer> batchSizes = new ArrayList<>();
+            final long count = ResultsFileImporter.importFile(file, context -> entries -> batchSizes.add(entries.size()), 10);
+            assertEquals(24, count);
+            assertEquals(Arrays.asList(10, 10, 4), batchSizes);
+
+            try (final ResultsFileReader reader = new ResultsFileReader(file)) {
+                while (reader.next() != null) {
+                    // read to the end.
+                }
+                assertTrue(reader.isTruncated());
+                assertNull(reader.next());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Map<String, String> newContext(final String script) {
+        final Map<String, String> context = new LinkedHashMap<>();
+        context.put("Software", "Chrome");
+        context.put("Location", "Paris");
+        context.put("Script", script);
+        return context;
+    }
+
+    /** Each writer records the context of its session and the importer opens one session per context. */
+    @Test
+    public void testImportWithRecordedContext() throws Exception {
+        final Path file = Files.createTempFile("results", ".nlr");
+        try {
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file, newContext("first"))) {
+                writer.write(TestEntries.newEntries(3, 1000L));
+            }
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file, newContext("second"))) {
+                writer.write(TestEntries.newEntries(2, 2000L));
+            }
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file, newContext("first"))) {
+                writer.write(TestEntries.newEntries(4, 3000L));
+            }
+
+            final Map<String, List<Integer>> batchSizes = new LinkedHashMap<>();
+            final long count = ResultsFileImporter.importFile(file, context -> {
+                final List<Integer> sizes = new ArrayList<>();
+                batchSizes.put(context.get("Script"), sizes);
+                return entries -> sizes.add(entries.size());
+            }, 10);
+            assertEquals(9, count);
+            assertEquals("The session of a context should be reused.", Arrays.asList("first", "second"), new ArrayList<>(batchSizes.keySet()));
+            assertEquals(Arrays.asList(3, 4), batchSizes.get("first"));
+            assertEquals(Arrays.asList(2), batchSizes.get("second"));
+
+            try (final ResultsFileReader reader = new ResultsFileReader(file)) {
+                reader.next();
+                assertEquals(newContext("first"), reader.getContext());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Files written without a context are read with an empty one. */
+    @Test
+    public void testNoContext() throws IOException {
+        final Path file = Files.createTempFile("results", ".nlr");
+        try {
+            try (final ResultsFileWriter writer = new ResultsFileWriter(file)) {
+                writer.write(TestEntries.newEntries(1, 1000L));
+            }
+            try (final ResultsFileReader reader = new ResultsFileReader(file)) {
+                reader.next();
+                assertEquals(Collections.emptyMap(), reader.getContext());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
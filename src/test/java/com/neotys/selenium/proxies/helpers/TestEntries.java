@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.neotys.rest.dataexchange.model.Entry;
+import com.neotys.rest.dataexchange.model.EntryBuilder;
+import com.neotys.rest.dataexchange.model.TimerBuilder;
+import com.neotys.rest.dataexchange.util.Statuses;
+
+/** Entries for the tests of the senders, the sinks and the results files. */
+final class TestEntries {
+
+    private TestEntries() {
+    }
+
+    /**
+     * @param name the name of the timer.
+     * @param timestamp
+     * @param value
+     * @return a passed entry of the timer script/Timers/name, with the URL http://localhost/name.
+     */
+    static Entry newEntry(final String name, final long timestamp, final double value) {
+        return newEntry(name, timestamp, value, null);
+    }
+
+    /**
+     * @param name the name of the timer.
+     * @param timestamp
+     * @param value
+     * @param failure the exception of a failed action, null if the action passed.
+     * @return an entry of the timer script/Timers/name, with the URL http://localhost/name.
+     */
+    static Entry newEntry(final String name, final long timestamp, final double value, final Exception failure) {
+        final EntryBuilder eb = new EntryBuilder(Arrays.asList("script", TimerBuilder.TIMERS_NAME, name), timestamp);
+        eb.url("http://localhost/" + name);
+        eb.status(Statuses.newStatus("200", failure));
+        eb.value(value);
+        eb.unit(TimerBuilder.DEFAULT_UNIT);
+        return eb.build();
+    }
+
+    /**
+     * @param count
+     * @return entries of the timers page0, page1..., one millisecond apart from 1000, with their index as value.
+     */
+    static List<Entry> newEntries(final int count) {
+        return newEntries(count, 1000L);
+    }
+
+    /**
+     * @param count
+     * @param firstTimestamp
+     * @return entries of the timers page0, page1..., one millisecond apart, with their index as value.
+     */
+    static List<Entry> newEntries(final int count, final long firstTimestamp) {
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(newEntry("page" + i, firstTimestamp + i, i));
+        }
+        return entries;
+    }
+
+    /**
+     * @param name the name of the timer.
+     * @param count
+     * @return entries of the same timer, one millisecond apart from 1000, with their index as value.
+     */
+    static List<Entry> newEntries(final String name, final int count) {
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(newEntry(name, 1000L + i, i));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class URLTemplaterTest {
+
+    @Test
+    public void testDetectors() {
+        final URLTemplater templater = new URLTemplater("", true);
+
+        assertEquals("/order/{id}/items/{id}", templater.apply("/order/8123/items/55"));
+        assertEquals("/user/{uuid}/profile", templater.apply("/user/123e4567-e89b-12d3-a456-426614174000/profile"));
+        assertEquals("/assets/{hash}/app.js", templater.apply("/assets/9f86d081884c7d659a2feaa0c55ad015/app.js"));
+        assertEquals("/cafe/deadbeef/menu/", templater.apply("/cafe/deadbeef/menu/"));
+
+        assertNull(URLTemplater.detect("v2"));
+        assertNull(URLTemplater.detect("abcdefabcdefabcdef"));
+    }
+
+    @Test
+    public void testTemplates() {
+        final URLTemplater templater = new URLTemplater("/order/{orderId}/items/{itemId}, /search/{term}", false);
+
+        assertEquals("/order/{orderId}/items/{itemId}", templater.apply("/order/8123/items/55"));
+        assertEquals("/search/{term}", templater.apply("/search/shoes"));
+        assertEquals("Segments must not be empty.", "/search/", templater.apply("/search/"));
+        assertEquals("Detectors are disabled.", "/order/8123", templater.apply("/order/8123"));
+    }
+}
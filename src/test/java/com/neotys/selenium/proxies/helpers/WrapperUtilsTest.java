@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016, Neotys
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the name of Neotys nor the names of its contributors may be
+ *       used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL NEOTYS BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.neotys.selenium.proxies.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+public class WrapperUtilsTest {
+
+    /** Implements more than the proxied interface. */
+    private static final class Original implements Runnable, Callable<String> {
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public String call() {
+            return "original";
+        }
+    }
+
+    /** The proxy implements all the interfaces of the original, and its class is reused. */
+    @Test
+    public void testNewProxy() throws Exception {
+        final Original original = new Original();
+        final InvocationHandler invocationHandler = (proxy, method, args) -> method.invoke(original, args);
+
+        final Runnable first = WrapperUtils.newProxy(Runnable.class, original, invocationHandler);
+        final Runnable second = WrapperUtils.newProxy(Runnable.class, new Original(), invocationHandler);
+
+        assertTrue("All the interfaces should be proxied.", first instanceof Callable);
+        assertEquals("original", ((Callable<?>) first).call());
+        assertSame(first.getClass(), second.getClass());
+    }
+}